@@ -0,0 +1,56 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * An adapter whose panels Panels can build away from the main
+  * thread. New panels are created by createView on a worker, then
+  * bound and attached on the main thread a few per frame; a
+  * placeholder is drawn where a panel is not yet ready. Recycled
+  * views are bound directly.
+  *
+  */
+public abstract class AsyncPanelsAdapter extends PanelsAdapter {
+    // called on a worker thread, possibly several at once: build the
+    // view for a panel of this position's type using the inflater
+    // given, which belongs to this call alone. parent is only for
+    // generating layout params; the view must not be attached or
+    // touch anything that is
+    public abstract View createView(int position, LayoutInflater inflater, ViewGroup parent);
+
+    // called on the main thread to fill a view from createView, or a
+    // recycled one of the same type, with the data for position
+    public abstract void bindView(int position, View panel);
+
+    // the synchronous path, for recycled views and for Panels that
+    // are not building asynchronously
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View rv = convertView;
+        if ( null == rv ) {
+            rv = createView(position, LayoutInflater.from(parent.getContext()), parent);
+        }
+        bindView(position, rv);
+        return rv;
+    }
+}
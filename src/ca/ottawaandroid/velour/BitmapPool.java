@@ -0,0 +1,83 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.ArrayList;
+
+import android.graphics.Bitmap;
+
+/**
+  *
+  * Keeps released bitmaps around so that snapshots of the same size
+  * can be drawn into them instead of allocating new ones.
+  *
+  */
+class BitmapPool {
+    private final ArrayList<Bitmap> mFree = new ArrayList<Bitmap>();
+    private int mMaxBytes;
+    private int mBytes;
+
+    public BitmapPool(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    static int sizeOf(Bitmap b) {
+        return b.getRowBytes() * b.getHeight();
+    }
+
+    public void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        trim();
+    }
+
+    public Bitmap get(int w, int h) {
+        Bitmap rv = null;
+        for ( int i = mFree.size() - 1; i >= 0 && null == rv; i-- ) {
+            final Bitmap b = mFree.get(i);
+            if ( b.getWidth() == w && b.getHeight() == h ) {
+                rv = mFree.remove(i);
+                mBytes -= sizeOf(rv);
+            }
+        }
+        return rv;
+    }
+
+    public void put(Bitmap b) {
+        if ( !b.isRecycled() ) {
+            mFree.add(b);
+            mBytes += sizeOf(b);
+            trim();
+        }
+    }
+
+    private void trim() {
+        while ( mBytes > mMaxBytes && mFree.size() > 0 ) {
+            final Bitmap b = mFree.remove(0);
+            mBytes -= sizeOf(b);
+            b.recycle();
+        }
+    }
+
+    public void clear() {
+        for ( Bitmap b : mFree ) {
+            b.recycle();
+        }
+        mFree.clear();
+        mBytes = 0;
+    }
+}
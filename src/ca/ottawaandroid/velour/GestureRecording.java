@@ -0,0 +1,285 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/**
+  *
+  * The touch events and animation frames a Panels fed its paging
+  * engine, with the historical samples of each event and the velocity
+  * Panels measured on release, so that a gesture can be written to a
+  * compact file and replayed exactly by a GestureReplayer.
+  *
+  */
+public class GestureRecording {
+    static final int KIND_INTERCEPT = 0;
+    static final int KIND_TOUCH = 1;
+    static final int KIND_FRAME = 2;
+    // a call that moves the engine other than by touch; the action is
+    // one of the NAVIGATE_ values
+    static final int KIND_NAVIGATE = 3;
+
+    static final int NAVIGATE_REQUEST = 0;
+    static final int NAVIGATE_REQUEST_JUMP = 1;
+    static final int NAVIGATE_SCROLL = 2;
+    static final int NAVIGATE_CURRENT = 3;
+    static final int NAVIGATE_RESET = 4;
+    static final int NAVIGATE_HOME = 5;
+    static final int NAVIGATE_SHIFT = 6;
+    // a reset asked for by resetPanels rather than by a data change
+    static final int NAVIGATE_RESET_PANELS = 7;
+
+    private static final int MAGIC = 0x56475233; // VGR3
+
+    static class Event {
+        int kind;
+        int action;
+        // clock time when Panels handled the event
+        long time;
+        long eventTime;
+        float x;
+        float y;
+        float velocityX;
+        long[] historyTimes;
+        float[] historyX;
+        float[] historyY;
+        // for navigation, the panel and the panel count at the time
+        int panel;
+        int panelCount;
+        // for a shift, the next panel and whether the current changed
+        int next;
+        boolean changed;
+    }
+
+    private final ArrayList<Event> mEvents = new ArrayList<Event>();
+    private int mPanelWidth;
+    private int mPanelCount;
+    private boolean mWrapPermitted;
+    private int mFlingVelocity;
+    private int mTouchFuzz;
+    private int mTouchSlop;
+    private boolean mFlingPhysics;
+    private float mScreenPpi;
+    private int mCurrentPanel;
+    private int mScrollX;
+    private long mStartTime;
+
+    // the state of the Panels as recording starts
+    void begin(int w, int cc, boolean wp, int fv, int tf, int ts, boolean fp, float ppi,
+               int current, int sx, long now) {
+        mEvents.clear();
+        mPanelWidth = w;
+        mPanelCount = cc;
+        mWrapPermitted = wp;
+        mFlingVelocity = fv;
+        mTouchFuzz = tf;
+        mTouchSlop = ts;
+        mFlingPhysics = fp;
+        mScreenPpi = ppi;
+        mCurrentPanel = current;
+        mScrollX = sx;
+        mStartTime = now;
+    }
+
+    // historical samples are set on the returned event
+    Event addEvent(int kind, int action, long time, long eventTime, float x, float y, float vx, int hs) {
+        final Event e = new Event();
+        e.kind = kind;
+        e.action = action;
+        e.time = time;
+        e.eventTime = eventTime;
+        e.x = x;
+        e.y = y;
+        e.velocityX = vx;
+        e.historyTimes = new long[hs];
+        e.historyX = new float[hs];
+        e.historyY = new float[hs];
+        mEvents.add(e);
+        return e;
+    }
+
+    void addFrame(long time) {
+        addEvent(KIND_FRAME, 0, time, time, 0, 0, 0, 0);
+    }
+
+    Event addNavigation(int op, long time, int pi, int cc) {
+        final Event e = addEvent(KIND_NAVIGATE, op, time, time, 0, 0, 0, 0);
+        e.panel = pi;
+        e.panelCount = cc;
+        return e;
+    }
+
+    Event getEvent(int i) {
+        return mEvents.get(i);
+    }
+
+    public int getEventCount() {
+        return mEvents.size();
+    }
+
+    public int getPanelWidth() {
+        return mPanelWidth;
+    }
+
+    public int getPanelCount() {
+        return mPanelCount;
+    }
+
+    public boolean isWrappingPermitted() {
+        return mWrapPermitted;
+    }
+
+    public int getFlingVelocity() {
+        return mFlingVelocity;
+    }
+
+    public int getTouchFuzz() {
+        return mTouchFuzz;
+    }
+
+    public int getTouchSlop() {
+        return mTouchSlop;
+    }
+
+    public boolean isFlingPhysics() {
+        return mFlingPhysics;
+    }
+
+    public float getScreenPpi() {
+        return mScreenPpi;
+    }
+
+    public int getCurrentPanel() {
+        return mCurrentPanel;
+    }
+
+    public int getScrollX() {
+        return mScrollX;
+    }
+
+    public long getStartTime() {
+        return mStartTime;
+    }
+
+    // times are written relative to the start of the recording
+    public void write(OutputStream os) throws IOException {
+        final DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(mPanelWidth);
+        out.writeInt(mPanelCount);
+        out.writeBoolean(mWrapPermitted);
+        out.writeInt(mFlingVelocity);
+        out.writeInt(mTouchFuzz);
+        out.writeInt(mTouchSlop);
+        out.writeBoolean(mFlingPhysics);
+        out.writeFloat(mScreenPpi);
+        out.writeInt(mCurrentPanel);
+        out.writeInt(mScrollX);
+        out.writeLong(mStartTime);
+
+        final int c = mEvents.size();
+        out.writeInt(c);
+        for ( int i = 0; i < c; i++ ) {
+            final Event e = mEvents.get(i);
+            out.writeByte(e.kind);
+            out.writeInt((int) (e.time - mStartTime));
+            if ( KIND_NAVIGATE == e.kind ) {
+                out.writeByte(e.action);
+                out.writeInt(e.panel);
+                out.writeInt(e.panelCount);
+                if ( NAVIGATE_SHIFT == e.action ) {
+                    out.writeInt(e.next);
+                    out.writeBoolean(e.changed);
+                }
+            } else if ( KIND_FRAME != e.kind ) {
+                out.writeShort(e.action);
+                out.writeInt((int) (e.eventTime - mStartTime));
+                out.writeFloat(e.x);
+                out.writeFloat(e.y);
+                out.writeFloat(e.velocityX);
+
+                final int hs = e.historyTimes.length;
+                out.writeShort(hs);
+                for ( int h = 0; h < hs; h++ ) {
+                    out.writeInt((int) (e.historyTimes[h] - mStartTime));
+                    out.writeFloat(e.historyX[h]);
+                    out.writeFloat(e.historyY[h]);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    public static GestureRecording read(InputStream is) throws IOException {
+        final DataInputStream in = new DataInputStream(is);
+        if ( MAGIC != in.readInt() ) {
+            throw new IOException("not a gesture recording");
+        }
+
+        final GestureRecording rv = new GestureRecording();
+        final int w = in.readInt();
+        final int cc = in.readInt();
+        final boolean wp = in.readBoolean();
+        final int fv = in.readInt();
+        final int tf = in.readInt();
+        final int ts = in.readInt();
+        final boolean fp = in.readBoolean();
+        final float ppi = in.readFloat();
+        final int current = in.readInt();
+        final int sx = in.readInt();
+        final long start = in.readLong();
+        rv.begin(w, cc, wp, fv, tf, ts, fp, ppi, current, sx, start);
+
+        final int c = in.readInt();
+        for ( int i = 0; i < c; i++ ) {
+            final int kind = in.readByte();
+            final long time = start + in.readInt();
+            if ( KIND_FRAME == kind ) {
+                rv.addFrame(time);
+            } else if ( KIND_NAVIGATE == kind ) {
+                final int op = in.readByte();
+                final int pi = in.readInt();
+                final Event e = rv.addNavigation(op, time, pi, in.readInt());
+                if ( NAVIGATE_SHIFT == op ) {
+                    e.next = in.readInt();
+                    e.changed = in.readBoolean();
+                }
+            } else {
+                final int action = in.readUnsignedShort();
+                final long eventTime = start + in.readInt();
+                final float x = in.readFloat();
+                final float y = in.readFloat();
+                final float vx = in.readFloat();
+                final int hs = in.readShort();
+                final Event e = rv.addEvent(kind, action, time, eventTime, x, y, vx, hs);
+                for ( int h = 0; h < hs; h++ ) {
+                    e.historyTimes[h] = start + in.readInt();
+                    e.historyX[h] = in.readFloat();
+                    e.historyY[h] = in.readFloat();
+                }
+            }
+        }
+        return rv;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+/**
+  *
+  * Plays a GestureRecording back into a PagingEngine on a virtual
+  * clock, one event at a time or all at once, so that a recorded
+  * gesture produces the same scrolls and panel events on every run,
+  * on or off a device.
+  *
+  */
+public class GestureReplayer {
+    // the recorded geometry and options, with the engine's output
+    // ignored; override the callbacks to observe a replay
+    public static class ReplayHost implements PagingEngine.Host {
+        private final GestureRecording mRecording;
+        // changes when a reset recorded a new set of panels
+        private int mPanelCount;
+
+        public ReplayHost(GestureRecording r) {
+            mRecording = r;
+            mPanelCount = r.getPanelCount();
+        }
+
+        void setPanelCount(int cc) {
+            mPanelCount = cc;
+        }
+
+        public int getPanelCount() {
+            return mPanelCount;
+        }
+
+        public int getPanelWidth() {
+            return mRecording.getPanelWidth();
+        }
+
+        public boolean isWrappingPermitted() {
+            return mRecording.isWrappingPermitted();
+        }
+
+        public int getTouchFuzz() {
+            return mRecording.getTouchFuzz();
+        }
+
+        public int getTouchSlop() {
+            return mRecording.getTouchSlop();
+        }
+
+        public int getFlingVelocity() {
+            return mRecording.getFlingVelocity();
+        }
+
+        public boolean isFlingPhysics() {
+            return mRecording.isFlingPhysics();
+        }
+
+        public void scrollTo(int x) {
+        }
+
+        public void invalidate() {
+        }
+
+        public void onPanelChanged(int pi) {
+        }
+
+        public void onNextChanged(int pi) {
+        }
+
+        public void onPanelPending(int pi) {
+        }
+
+        public void onGestureStarted() {
+        }
+
+        public void onMotionStarted() {
+        }
+
+        public void onDragClaimed() {
+        }
+
+        public void onScrollStarted(int pi) {
+        }
+
+        public void onScrollSettled() {
+        }
+    }
+
+    private final GestureRecording mRecording;
+    private final PagingEngine.Host mHost;
+    private final PagingEngine mEngine;
+    private long mNow;
+    private int mPosition;
+
+    public GestureReplayer(GestureRecording r) {
+        this(r, new ReplayHost(r));
+    }
+
+    public GestureReplayer(GestureRecording r, PagingEngine.Host host) {
+        mRecording = r;
+        mHost = host;
+        mNow = r.getStartTime();
+        mEngine = new PagingEngine(host, new PagingEngine.Clock() {
+            public long now() {
+                return mNow;
+            }
+        });
+        mEngine.setScreenPpi(r.getScreenPpi());
+        mEngine.setCurrent(r.getCurrentPanel());
+        mEngine.scrollTo(r.getScrollX());
+    }
+
+    public PagingEngine getEngine() {
+        return mEngine;
+    }
+
+    // the virtual time of the last event replayed
+    public long getTime() {
+        return mNow;
+    }
+
+    public boolean hasNext() {
+        return mPosition < mRecording.getEventCount();
+    }
+
+    public void step() {
+        final GestureRecording.Event e = mRecording.getEvent(mPosition++);
+        mNow = e.time;
+        switch (e.kind) {
+            case GestureRecording.KIND_INTERCEPT:
+                mEngine.onInterceptTouchEvent(e.action, e.x, e.y);
+                break;
+
+            case GestureRecording.KIND_TOUCH:
+                // as Panels does, historical samples first
+                if ( PagingEngine.ACTION_MOVE == e.action ) {
+                    for ( int h = 0; h < e.historyX.length; h++ ) {
+                        mEngine.onTouchEvent(e.action, e.historyX[h], e.historyY[h], 0);
+                    }
+                }
+                mEngine.onTouchEvent(e.action, e.x, e.y, e.velocityX);
+                break;
+
+            case GestureRecording.KIND_FRAME:
+                mEngine.computeScroll();
+                break;
+
+            case GestureRecording.KIND_NAVIGATE:
+                navigate(e);
+                break;
+        }
+    }
+
+    private void navigate(GestureRecording.Event e) {
+        switch (e.action) {
+            case GestureRecording.NAVIGATE_REQUEST:
+                mEngine.requestPanel(e.panel, true);
+                break;
+
+            case GestureRecording.NAVIGATE_REQUEST_JUMP:
+                mEngine.requestPanel(e.panel, false);
+                break;
+
+            case GestureRecording.NAVIGATE_SCROLL:
+                mEngine.scrollToPanel(e.panel);
+                break;
+
+            case GestureRecording.NAVIGATE_CURRENT:
+                mEngine.setCurrent(e.panel);
+                break;
+
+            case GestureRecording.NAVIGATE_RESET:
+            case GestureRecording.NAVIGATE_RESET_PANELS:
+                // a host of the caller's own follows the panels itself
+                if ( mHost instanceof ReplayHost ) {
+                    ((ReplayHost) mHost).setPanelCount(e.panelCount);
+                }
+                mEngine.reset(e.panel);
+                break;
+
+            case GestureRecording.NAVIGATE_SHIFT:
+                if ( mHost instanceof ReplayHost ) {
+                    ((ReplayHost) mHost).setPanelCount(e.panelCount);
+                }
+                mEngine.shift(e.panel, e.next, e.changed);
+                break;
+
+            case GestureRecording.NAVIGATE_HOME:
+                mEngine.scrollToCurrent();
+                break;
+        }
+    }
+
+    public void replay() {
+        while ( hasNext() ) {
+            step();
+        }
+    }
+}
@@ -0,0 +1,899 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+/**
+  *
+  * The paging behind Panels with no android classes in it: which panel
+  * is current and which is next, where a drag, fling or release sends
+  * the scroll, when the ends wrap, and the animation that settles it.
+  * Touch input, the time and the panel geometry come in through a Host
+  * and a Clock; scroll positions and panel events go back out through
+  * the Host. Panels is one such host; a test or a benchmark can be
+  * another, on a plain JVM.
+  *
+  */
+public class PagingEngine {
+    public static final int INVALID_PANEL = -1;
+
+    // the same values as MotionEvent's, so actions pass straight through
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+
+    public static final int WRAP_NONE = 0;
+    public static final int WRAP_LEFT = 1;
+    public static final int WRAP_RIGHT = 2;
+
+    public interface Clock {
+        // milliseconds, on the same timebase as the animation frames
+        long now();
+    }
+
+    public interface Host {
+        int getPanelCount();
+        int getPanelWidth();
+        boolean isWrappingPermitted();
+        int getTouchFuzz();
+        // how far a finger travels before the drag is taken to be one
+        int getTouchSlop();
+        int getFlingVelocity();
+        // settle along OverScroller's deceleration spline, timed by the
+        // release velocity, instead of at a fixed rate per pixel
+        boolean isFlingPhysics();
+
+        void scrollTo(int x);
+        // another frame is needed to continue the animation
+        void invalidate();
+
+        void onPanelChanged(int pi);
+        void onNextChanged(int pi);
+        void onPanelPending(int pi);
+
+        // a finger went down; whatever was cached for the last gesture
+        // is stale
+        void onGestureStarted();
+        // a drag began, once per gesture
+        void onMotionStarted();
+        // the drag went further than the touch slop across, and more
+        // across than down; a scrolling parent should leave it alone.
+        // Once per gesture
+        void onDragClaimed();
+        // an animated scroll toward pi began
+        void onScrollStarted(int pi);
+        // the motion is over and the scroll rests on the current panel
+        void onScrollSettled();
+    }
+
+    private static final float VISCOUS_FLUID_SCALE = 8.0f;
+    private static final float VISCOUS_FLUID_NORMALIZE = 1.0f / viscousFluidRaw(1.0f);
+
+    // OverScroller's deceleration spline, sampled as the fraction of
+    // the distance covered at each hundredth of the duration
+    private static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+    private static final float INFLEXION = 0.35f;
+    private static final float START_TENSION = 0.5f;
+    private static final float END_TENSION = 1.0f;
+    private static final float SCROLL_FRICTION = 0.015f;
+    private static final int NB_SAMPLES = 100;
+    private static final float[] SPLINE_POSITION = new float[NB_SAMPLES + 1];
+    // distances per duration at the start of the spline
+    private static final float SPLINE_START_SLOPE;
+    // no settle, however slow the release, takes longer than this
+    private static final int MAX_SETTLE_DURATION = 600;
+    // requested panels further away than this are jumped to
+    private static final int MAX_ANIMATED_PANELS = 3;
+
+    static {
+        final float p1 = START_TENSION * INFLEXION;
+        final float p2 = 1.0f - END_TENSION * (1.0f - INFLEXION);
+        float xMin = 0.0f;
+        for ( int i = 0; i < NB_SAMPLES; i++ ) {
+            final float alpha = (float) i / NB_SAMPLES;
+            float xMax = 1.0f;
+            float x;
+            float coef;
+            while ( true ) {
+                x = xMin + (xMax - xMin) / 2.0f;
+                coef = 3.0f * x * (1.0f - x);
+                final float tx = coef * ((1.0f - x) * p1 + x * p2) + x * x * x;
+                if ( Math.abs(tx - alpha) < 1E-5 ) {
+                    break;
+                }
+                if ( tx > alpha ) {
+                    xMax = x;
+                } else {
+                    xMin = x;
+                }
+            }
+            SPLINE_POSITION[i] = coef * ((1.0f - x) * START_TENSION + x) + x * x * x;
+        }
+        SPLINE_POSITION[NB_SAMPLES] = 1.0f;
+        SPLINE_START_SLOPE = (SPLINE_POSITION[1] - SPLINE_POSITION[0]) * NB_SAMPLES;
+    }
+
+    private final Host mHost;
+    private final Clock mClock;
+
+    private int mCurrent;
+    private int mNext = INVALID_PANEL;
+    private int mScrollX;
+    private int mWrap = WRAP_NONE;
+    // the next panel was reached by going round an end, rather than the
+    // wrap coming from where the scroll is
+    private boolean mNextWrapped;
+    private boolean mDragging;
+    // a finger caught a settling scroll where it was; it settles again
+    // when the finger lifts
+    private boolean mHeld;
+    // the latest programmatic request, applied on the next frame
+    private int mRequested = INVALID_PANEL;
+    private boolean mRequestAnimated;
+    private float mPhysicalCoeff = physicalCoeff(160.0f);
+
+    // the settling animation; android's Scroller curve, or the spline
+    // when settling with fling physics
+    private boolean mFinished = true;
+    private boolean mSpline;
+    private long mStartTime;
+    private int mDuration;
+    private int mStartX;
+    private int mFinalX;
+    private int mCurrX;
+
+    private float mLastX;
+    // where the gesture went down, and whether it has been claimed
+    private float mDownX;
+    private float mDownY;
+    private boolean mClaimed;
+    // the fraction of a pixel dragged but not yet scrolled
+    private float mDragRemainder;
+
+    public PagingEngine(Host host, Clock clock) {
+        mHost = host;
+        mClock = clock;
+    }
+
+    public int getCurrent() {
+        return mCurrent;
+    }
+
+    public int getNext() {
+        return mNext;
+    }
+
+    public boolean isNextValid() {
+        return INVALID_PANEL != mNext;
+    }
+
+    public int getScrollX() {
+        return mScrollX;
+    }
+
+    public int getWrap() {
+        return mWrap;
+    }
+
+    // the next panel is the wrapped copy past an end, drawn on that side
+    // of the window; otherwise it is drawn where it is
+    public boolean isNextWrapped() {
+        return isNextValid() && mNextWrapped;
+    }
+
+    // true while a finger is dragging the panels or holding a fling
+    public boolean isInMotion() {
+        return mState.isInMotion();
+    }
+
+    public boolean isScrollFinished() {
+        return mFinished;
+    }
+
+    // the density the fling distances are worked out at
+    public void setScreenPpi(float ppi) {
+        mPhysicalCoeff = physicalCoeff(ppi);
+    }
+
+    public void setCurrent(int pi) {
+        mCurrent = pi;
+        mHost.onPanelChanged(mCurrent);
+    }
+
+    // rest on pi, with the scroll moved there before the change is
+    // published, so that listeners see the panels where they now are
+    private void restOn(int pi) {
+        mCurrent = pi;
+        scrollToCurrent();
+        mHost.onPanelChanged(mCurrent);
+    }
+
+    // drop any motion and rest on pi, as after the panels change
+    // underneath the engine
+    public void reset(int pi) {
+        abortAnimation();
+        mState = mNeutralState;
+        mWrap = WRAP_NONE;
+        mDragging = false;
+        mHeld = false;
+        mRequested = INVALID_PANEL;
+        setNext(INVALID_PANEL);
+        restOn(pi);
+    }
+
+    // the panels were edited without disturbing the engine: the
+    // current panel is now pi and the next, if there is one, next, or
+    // INVALID_PANEL where it went. A drag or settle carries on the
+    // same distance from the current panel, a settle whose next panel
+    // went turns back, and onPanelChanged fires only if changed
+    public void shift(int pi, int next, boolean changed) {
+        final int w = mHost.getPanelWidth();
+        final int dx = (pi - mCurrent) * w;
+        final int oldNext = mNext;
+        mCurrent = pi;
+        mScrollX += dx;
+        mStartX += dx;
+        mCurrX += dx;
+        mFinalX += dx;
+        if ( isNextValid() && INVALID_PANEL != next ) {
+            mNext = next;
+            mFinalX += (next - oldNext) * w - dx;
+        }
+        if ( 0 != dx ) {
+            mHost.scrollTo(mScrollX);
+        }
+        if ( isNextValid() && INVALID_PANEL == next ) {
+            setNext(INVALID_PANEL);
+            if ( !mFinished ) {
+                scrollToPanelNow(mCurrent, getAnimationVelocity());
+            }
+        }
+        if ( changed ) {
+            mHost.onPanelChanged(mCurrent);
+        }
+    }
+
+    public void scrollTo(int x) {
+        final int ox = mScrollX;
+        if ( x != ox ) {
+            mScrollX = x;
+            mHost.scrollTo(x);
+            updatePending(x, ox);
+        }
+    }
+
+    public void scrollToCurrent() {
+        scrollTo(mCurrent * mHost.getPanelWidth());
+    }
+
+    // animate to pi; pi may be one past either end, which wraps when
+    // wrapping is permitted. With fling physics a running animation is
+    // turned toward pi, otherwise the request is dropped
+    public void scrollToPanel(int pi) {
+        if ( mHost.isFlingPhysics() ) {
+            scrollToPanelNow(pi, getAnimationVelocity());
+        } else if ( mFinished ) {
+            scrollToPanelNow(pi, 0);
+        }
+    }
+
+    // move to pi on the next frame, animated unless animate is false or
+    // pi is far away. Requests made before that frame are merged, the
+    // last one winning, and one made while settling turns the settle
+    // toward it; only the panel finally settled on is reported as
+    // changed. A finger going down drops the request
+    public void requestPanel(int pi, boolean animate) {
+        mRequested = clamp(pi);
+        mRequestAnimated = animate;
+        mHost.invalidate();
+    }
+
+    public int clamp(int pi) {
+        return Math.max(0, Math.min(pi, mHost.getPanelCount() - 1));
+    }
+
+    // i as a panel index, folded into range when wrapping
+    public int normalize(int i) {
+        final int cc = mHost.getPanelCount();
+        int rv = i;
+        if ( mHost.isWrappingPermitted() && cc > 0 ) {
+            rv = ((i % cc) + cc) % cc;
+        }
+        return rv;
+    }
+
+    // within margin panels of the current or next panel, or of the
+    // panels in view while the scroll is moving, counting around the
+    // ends when wrapping
+    public boolean isPanelNear(int pi, int margin) {
+        return isPanelInRange(pi, mCurrent, margin)
+            || (isNextValid() && isPanelInRange(pi, clamp(mNext), margin))
+            || (isScrollMoving() && isPanelInView(pi, margin));
+    }
+
+    // a settling scroll can pass over panels far from both the current
+    // and the next one, and a drag brings in a neighbour before it is
+    // the next one, so the panels in view are followed as well
+    public boolean isScrollMoving() {
+        return (!mFinished || mState.isInMotion()) && mHost.getPanelWidth() > 0;
+    }
+
+    private boolean isPanelInView(int pi, int margin) {
+        final int sn = getScrolledNext();
+        return isPanelInRange(pi, getScrolledPanel(), margin)
+            || (INVALID_PANEL != sn && isPanelInRange(pi, sn, margin));
+    }
+
+    // the scroll position in panels
+    public float getScrollPosition() {
+        return (float) mScrollX / mHost.getPanelWidth();
+    }
+
+    // the panel at the left edge of the window
+    public int getScrolledPanel() {
+        final int w = mHost.getPanelWidth();
+        int rv = mScrollX / w;
+        if ( mScrollX % w < 0 ) {
+            rv--;
+        }
+        return normalize(rv);
+    }
+
+    // the panel at the right edge of the window, or INVALID_PANEL when
+    // the scroll rests on a panel
+    public int getScrolledNext() {
+        int rv = INVALID_PANEL;
+        if ( 0 != mScrollX % mHost.getPanelWidth() ) {
+            rv = normalize(getScrolledPanel() + 1);
+        }
+        return rv;
+    }
+
+    // how far (0..1) the panel at the left edge has scrolled off
+    public float getScrolledOffset() {
+        final int w = mHost.getPanelWidth();
+        int off = mScrollX % w;
+        if ( off < 0 ) {
+            off += w;
+        }
+        return (float) off / w;
+    }
+
+    // the position of pi, or of its wrapped copy one count to either
+    // side, that is nearest the window
+    public int nearestCopy(int pi) {
+        final int cc = mHost.getPanelCount();
+        final float at = getScrollPosition();
+        int rv = pi;
+
+        if ( mHost.isWrappingPermitted() ) {
+            if ( Math.abs(pi - cc - at) < Math.abs(rv - at) ) {
+                rv = pi - cc;
+            }
+            if ( Math.abs(pi + cc - at) < Math.abs(rv - at) ) {
+                rv = pi + cc;
+            }
+        }
+        return rv;
+    }
+
+    public boolean onInterceptTouchEvent(int action, float x, float y) {
+        boolean intercept = mState.interceptWithoutHandling(action);
+        if ( !intercept ) {
+            switch (action) {
+                case ACTION_MOVE:
+                    mState = mState.onInterceptActionMove(x, y);
+                    break;
+
+                case ACTION_DOWN:
+                    mState = mState.onInterceptActionDown(x, y);
+                    break;
+
+                case ACTION_CANCEL:
+                case ACTION_UP:
+                    mState = mNeutralState;
+                    break;
+            }
+
+            intercept = mState.intercepted();
+        }
+        return intercept;
+    }
+
+    // velocityX, in pixels per second, is only read on ACTION_UP; pass
+    // the historical samples of a batched move as moves of their own,
+    // oldest first, so that none of the motion is lost
+    public void onTouchEvent(int action, float x, float y, float velocityX) {
+        switch (action) {
+            case ACTION_DOWN:
+                mState = mState.onActionDown(x, y);
+                break;
+
+            case ACTION_MOVE:
+                mState = mState.onActionMove(x, y);
+                break;
+
+            case ACTION_UP:
+                mState = mState.onActionUp(velocityX);
+                break;
+
+            case ACTION_CANCEL:
+                mState = mState.onActionCancel();
+                break;
+        }
+    }
+
+    // advance the animation to the clock; call once per frame
+    public void computeScroll() {
+        if ( INVALID_PANEL != mRequested && !mState.isInMotion() && !mHeld ) {
+            applyRequest();
+        }
+
+        final int sx = mScrollX;
+        if ( computeScrollOffset() ) {
+            if ( mCurrX != sx ) {
+                scrollTo(mCurrX);
+            } else {
+                mHost.invalidate();
+            }
+        } else if ( isNextValid() && !mHeld ) {
+            setCurrent(clamp(mNext));
+            setNext(INVALID_PANEL);
+            mWrap = WRAP_NONE;
+            settleMotion();
+
+            final int cx = mCurrent * mHost.getPanelWidth();
+            if ( sx != cx ) {
+                scrollTo(cx);
+            }
+        }
+    }
+
+    private void applyRequest() {
+        final int pi = mRequested;
+        final int cc = mHost.getPanelCount();
+        final boolean moving = !mFinished || isNextValid();
+        final int vp = mHost.getPanelWidth() > 0 ? nearestCopy(pi) : pi;
+        final int target = vp >= -1 && vp <= cc ? vp : pi;
+
+        mRequested = INVALID_PANEL;
+        if ( pi < 0 || (pi == mCurrent && !moving) ) {
+            // nowhere to go
+        } else if ( !mRequestAnimated
+                    || Math.abs(target - getScrollPosition()) > MAX_ANIMATED_PANELS ) {
+            jumpToPanel(pi);
+        } else {
+            scrollToPanelNow(target, getAnimationVelocity());
+        }
+    }
+
+    private void jumpToPanel(int pi) {
+        abortAnimation();
+        mWrap = WRAP_NONE;
+        if ( isNextValid() ) {
+            setNext(INVALID_PANEL);
+        }
+        restOn(pi);
+        settleMotion();
+    }
+
+    private void setNext(int pi) {
+        mNext = pi;
+        mHost.onNextChanged(pi);
+    }
+
+    private void settleMotion() {
+        mDragging = false;
+        mHost.onScrollSettled();
+    }
+
+    private void startMotion() {
+        if ( !mDragging ) {
+            mDragging = true;
+            mHost.onMotionStarted();
+        }
+    }
+
+    private void startGesture(float x, float y) {
+        mLastX = x;
+        mDownX = x;
+        mDownY = y;
+        mClaimed = false;
+        mDragRemainder = 0;
+        mRequested = INVALID_PANEL;
+        mHost.onGestureStarted();
+    }
+
+    private void claimDrag(float x, float y) {
+        if ( !mClaimed ) {
+            final float dx = Math.abs(x - mDownX);
+            if ( dx > mHost.getTouchSlop() && dx > Math.abs(y - mDownY) ) {
+                mClaimed = true;
+                mHost.onDragClaimed();
+            }
+        }
+    }
+
+    private boolean isPanelInRange(int pi, int around, int margin) {
+        int d = Math.abs(pi - around);
+        if ( mHost.isWrappingPermitted() ) {
+            d = Math.min(d, mHost.getPanelCount() - d);
+        }
+        return d <= margin;
+    }
+
+    private void updatePending(int l, int oldl) {
+        final int w = mHost.getPanelWidth();
+        if ( w <= 0 ) {
+            // not laid out yet
+        } else if ( l < oldl && l % w < w / 2 && l > 0 ) {
+            mHost.onPanelPending(mCurrent - 1);
+        } else if ( l > oldl && l % w > w / 2 && l < w * mHost.getPanelCount() ) {
+            mHost.onPanelPending(mCurrent + 1);
+        }
+    }
+
+    private void scrollByCurrentPosition() {
+        final int w = mHost.getPanelWidth();
+        final int sx = mScrollX;
+        final int sw = sx + (w / 2);
+        final int cc = mHost.getPanelCount();
+        int pi = - 1;
+
+        if (sw > w * cc) {
+            pi = cc;
+        } else if ( sw > 0 ){
+            pi = (sx + (w / 2)) / w;
+        }
+        scrollToPanel(pi);
+    }
+
+    private int wrapIndexLeft() {
+        int rv = 0;
+        if ( mHost.isWrappingPermitted() ) {
+            rv = mHost.getPanelCount();
+            mWrap = WRAP_LEFT;
+        }
+        return rv;
+    }
+
+    private int wrapIndexRight() {
+        int rv = mHost.getPanelCount();
+        if ( mHost.isWrappingPermitted() ) {
+            rv = 0;
+            mWrap = WRAP_RIGHT;
+        }
+        return rv;
+    }
+
+    private int changePanel(int pi) {
+        final int cc = mHost.getPanelCount() - 1;
+        final int requestedI = pi;
+
+        mWrap = WRAP_NONE;
+
+        if (pi < 0) {
+            pi = wrapIndexLeft();
+        } else if (pi > cc) {
+            pi = wrapIndexRight();
+        }
+        mNextWrapped = WRAP_NONE != mWrap;
+
+        // heading back from past an end, the wrapped panel stays in
+        // view until the scroll is home
+        if ( WRAP_NONE == mWrap && mHost.isWrappingPermitted() ) {
+            if ( mScrollX < 0 ) {
+                mWrap = WRAP_LEFT;
+            } else if ( mScrollX > cc * mHost.getPanelWidth() ) {
+                mWrap = WRAP_RIGHT;
+            }
+        }
+
+        setNext(pi);
+        return requestedI * mHost.getPanelWidth();
+    }
+
+    private void scrollToPanelNow(int pi, float velocity) {
+        final int nx = changePanel(pi);
+        mHost.onScrollStarted(pi);
+        startScroll(nx, velocity);
+        mHost.invalidate();
+    }
+
+    private void startScroll(final int nx, float velocity) {
+        final int delta = nx - mScrollX;
+        mStartX = mScrollX;
+        mCurrX = mScrollX;
+        mFinalX = nx;
+        mSpline = mHost.isFlingPhysics();
+        if ( mSpline ) {
+            mDuration = getSettleDuration(Math.abs(delta), velocity);
+        } else {
+            mDuration = Math.abs(delta) * 2;
+        }
+        mStartTime = mClock.now();
+        mFinished = false;
+    }
+
+    private void abortAnimation() {
+        mCurrX = mFinalX;
+        mFinished = true;
+    }
+
+    // stop the animation where it is rather than at its end
+    private void catchAnimation() {
+        mFinished = true;
+        mHeld = true;
+    }
+
+    private boolean computeScrollOffset() {
+        boolean rv = !mFinished;
+        if ( rv ) {
+            final long passed = mClock.now() - mStartTime;
+            if ( passed < mDuration ) {
+                final float t = (float) passed / mDuration;
+                final float f = mSpline ? splinePosition(t) : viscousFluid(t);
+                mCurrX = mStartX + Math.round(f * (mFinalX - mStartX));
+            } else {
+                mCurrX = mFinalX;
+                mFinished = true;
+            }
+        }
+        return rv;
+    }
+
+    // the speed of a running spline animation in pixels per second,
+    // so that turning it toward another panel does not jolt
+    private float getAnimationVelocity() {
+        float rv = 0;
+        if ( !mFinished && mSpline && mDuration > 0 ) {
+            final float t = Math.min(1.0f, (float) (mClock.now() - mStartTime) / mDuration);
+            rv = splineSlope(t) * Math.abs(mFinalX - mStartX) * 1000 / mDuration;
+        }
+        return rv;
+    }
+
+    // long enough that the spline starts at the release velocity, but
+    // never slower than a release at the fling threshold
+    private int getSettleDuration(int distance, float velocity) {
+        final float v = Math.max(Math.abs(velocity), Math.max(1, mHost.getFlingVelocity()));
+        return Math.min(MAX_SETTLE_DURATION, (int) (1000 * distance * SPLINE_START_SLOPE / v));
+    }
+
+    // the panel a release at velocityX carries the scroll to: as far as
+    // the spline would coast, rounded to a panel, and at least to the
+    // next panel in the direction of the fling
+    private int getFlingTarget(float velocityX) {
+        final int w = mHost.getPanelWidth();
+        final int cc = mHost.getPanelCount();
+        final float at = (float) mScrollX / w;
+        final float d = getSplineFlingDistance(velocityX) / w;
+        int rv;
+
+        if ( velocityX < 0 ) {
+            rv = Math.max(Math.round(at + d), (int) Math.floor(at) + 1);
+        } else {
+            rv = Math.min(Math.round(at - d), (int) Math.ceil(at) - 1);
+        }
+
+        if ( mHost.isWrappingPermitted() ) {
+            rv = Math.max(-1, Math.min(rv, cc));
+        } else {
+            rv = Math.max(0, Math.min(rv, cc - 1));
+        }
+        return rv;
+    }
+
+    private float getSplineFlingDistance(float velocity) {
+        final double l = Math.log(INFLEXION * Math.abs(velocity) / (SCROLL_FRICTION * mPhysicalCoeff));
+        final double decelMinusOne = DECELERATION_RATE - 1.0;
+        return (float) (SCROLL_FRICTION * mPhysicalCoeff * Math.exp(DECELERATION_RATE / decelMinusOne * l));
+    }
+
+    private static float physicalCoeff(float ppi) {
+        // g (m/s^2) * inches per meter * pixels per inch * fudge
+        return 9.80665f * 39.37f * ppi * 0.84f;
+    }
+
+    private static float splinePosition(float t) {
+        final int index = Math.min((int) (NB_SAMPLES * t), NB_SAMPLES - 1);
+        final float tInf = (float) index / NB_SAMPLES;
+        return SPLINE_POSITION[index] + (t - tInf) * splineSlope(t);
+    }
+
+    private static float splineSlope(float t) {
+        final int index = Math.min((int) (NB_SAMPLES * t), NB_SAMPLES - 1);
+        return (SPLINE_POSITION[index + 1] - SPLINE_POSITION[index]) * NB_SAMPLES;
+    }
+
+    private static float viscousFluid(float x) {
+        return viscousFluidRaw(x) * VISCOUS_FLUID_NORMALIZE;
+    }
+
+    private static float viscousFluidRaw(float x) {
+        x *= VISCOUS_FLUID_SCALE;
+        if ( x < 1.0f ) {
+            x -= (1.0f - (float) Math.exp(-x));
+        } else {
+            // 1/e == exp(-1)
+            final float start = 0.36787944117f;
+            x = 1.0f - (float) Math.exp(1.0f - x);
+            x = start + x * (1.0f - start);
+        }
+        return x;
+    }
+
+    private class State {
+        private boolean hadLateralMotion(float x) {
+            return ((int) Math.abs(x - mLastX) > mHost.getTouchFuzz());
+        }
+
+        public boolean isInMotion() {
+            return false;
+        }
+
+        public boolean intercepted() {
+            return false;
+        }
+
+        public boolean interceptWithoutHandling(int action) {
+            return false;
+        }
+
+        public State onActionDown(float x, float y) {
+            if ( mFinished ) {
+                // nothing to stop
+            } else if ( mHost.isFlingPhysics() ) {
+                catchAnimation();
+            } else {
+                abortAnimation();
+            }
+            startGesture(x, y);
+            return this;
+        }
+
+        public State onActionUp(float vx) {
+            if ( mHeld ) {
+                mHeld = false;
+                scrollByCurrentPosition();
+            }
+            return mNeutralState;
+        }
+
+        public State onActionMove(float x, float y) {
+            startMotion();
+            claimDrag(x, y);
+            return mMotionState;
+        }
+
+        public State onActionCancel() {
+            if ( mHeld ) {
+                mHeld = false;
+                scrollByCurrentPosition();
+            } else if ( !isNextValid() ) {
+                settleMotion();
+            }
+            return mNeutralState;
+        }
+
+        private State onInterceptActionDown(float x, float y) {
+            final boolean moving = !mFinished;
+            startGesture(x, y);
+            if ( moving && mHost.isFlingPhysics() ) {
+                catchAnimation();
+            }
+
+            return moving ? mMotionState : mNeutralState;
+        }
+
+        private State onInterceptActionMove(float x, float y) {
+            State rv = this;
+
+            if ( hadLateralMotion(x) ) {
+                rv = mMotionState;
+                startMotion();
+                claimDrag(x, y);
+            }
+
+            return rv;
+        }
+    }
+
+    private class InMotion extends State {
+        @Override
+        public boolean interceptWithoutHandling(int action) {
+            return (action == ACTION_MOVE);
+        }
+
+        @Override
+        public boolean intercepted() {
+            return true;
+        }
+
+        @Override
+        public boolean isInMotion() {
+            return true;
+        }
+
+        @Override
+        public State onActionUp(float velocityX) {
+            final int vx = (int) velocityX;
+            final int fv = mHost.getFlingVelocity();
+
+            mHeld = false;
+            if ( mHost.isFlingPhysics() ) {
+                if ( Math.abs(vx) > fv ) {
+                    scrollToPanelNow(getFlingTarget(velocityX), velocityX);
+                } else {
+                    scrollByCurrentPosition();
+                }
+            } else if (vx > fv && mCurrent > 0) {
+                scrollToPanel(mCurrent - 1);
+            } else if (vx < -fv && mCurrent < mHost.getPanelCount() - 1) {
+                scrollToPanel(mCurrent + 1);
+            } else {
+                scrollByCurrentPosition();
+            }
+
+            return super.onActionUp(velocityX);
+        }
+
+        @Override
+        public State onActionMove(float x, float y) {
+            final boolean wp = mHost.isWrappingPermitted();
+            final int w = mHost.getPanelWidth();
+            final int sx = mScrollX;
+            mDragRemainder += mLastX - x;
+            mLastX = x;
+
+            int dx = (int) mDragRemainder;
+            mDragRemainder -= dx;
+
+            if ( dx < 0 ) {
+                if (sx <= 0 ) {
+                    if ( wp ) {
+                        mWrap = WRAP_LEFT;
+                    } else {
+                        dx = 0;
+                    }
+                }
+                scrollTo(sx + dx);
+            } else if ( dx > 0 ) {
+                int cr = w * mHost.getPanelCount();
+                int space = cr - sx - w;
+                if (space <= 0 ) {
+                    if ( wp ) {
+                        mWrap = WRAP_RIGHT;
+                        space += w * 2;
+                    } else {
+                        space = 0;
+                    }
+                }
+                if ( space > 0 ) {
+                    scrollTo(sx + Math.min(space, dx));
+                }
+            }
+
+            return super.onActionMove(x, y);
+        }
+    }
+
+    private final State mNeutralState = new State();
+    private final State mMotionState = new InMotion();
+
+    private State mState = mNeutralState;
+}
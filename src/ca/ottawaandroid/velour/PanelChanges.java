@@ -0,0 +1,327 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+  *
+  * A description of how the panels of an adapter changed, as a
+  * sequence of inserts, removes and moves followed by the ranges whose
+  * contents changed. Each operation's positions are those after the
+  * operations before it. Passed to Panels.applyChanges in place of
+  * notifyDataSetChanged, once the adapter's data has been replaced.
+  *
+  */
+public class PanelChanges {
+    public static final int INSERT = 0;
+    public static final int REMOVE = 1;
+    public static final int MOVE = 2;
+    public static final int CHANGE = 3;
+
+    // marks an inserted panel when positions are mapped
+    private static final int INSERTED = -1;
+
+    private static class Op {
+        final int kind;
+        final int position;
+        // the panel count, or the target of a move
+        int count;
+
+        Op(int kind, int position, int count) {
+            this.kind = kind;
+            this.position = position;
+            this.count = count;
+        }
+    }
+
+    // the old and new lists to compare; calculate() only reads them,
+    // so they can be snapshots taken off the main thread. Ids must be
+    // unique within each list
+    public static abstract class Differ {
+        public abstract int getOldCount();
+        public abstract int getNewCount();
+        public abstract long getOldId(int position);
+        public abstract long getNewId(int position);
+
+        // only asked of panels with the same id
+        public boolean areContentsSame(int oldPosition, int newPosition) {
+            return true;
+        }
+    }
+
+    public interface Listener {
+        // on the main thread
+        void onChangesCalculated(PanelChanges changes);
+    }
+
+    private final ArrayList<Op> mOps = new ArrayList<Op>();
+
+    // adjacent operations of the same kind are merged
+    private PanelChanges add(int kind, int position, int count) {
+        final Op last = mOps.isEmpty() ? null : mOps.get(mOps.size() - 1);
+        if ( null != last && last.kind == kind && INSERT == kind
+             && last.position + last.count == position ) {
+            last.count += count;
+        } else if ( null != last && last.kind == kind && REMOVE == kind
+                    && position + count == last.position ) {
+            mOps.set(mOps.size() - 1, new Op(kind, position, last.count + count));
+        } else if ( null != last && last.kind == kind && CHANGE == kind
+                    && last.position + last.count == position ) {
+            last.count += count;
+        } else if ( count > 0 ) {
+            mOps.add(new Op(kind, position, count));
+        }
+        return this;
+    }
+
+    public PanelChanges insert(int position, int count) {
+        return add(INSERT, position, count);
+    }
+
+    public PanelChanges remove(int position, int count) {
+        return add(REMOVE, position, count);
+    }
+
+    public PanelChanges move(int from, int to) {
+        if ( from != to ) {
+            mOps.add(new Op(MOVE, from, to));
+        }
+        return this;
+    }
+
+    public PanelChanges change(int position, int count) {
+        return add(CHANGE, position, count);
+    }
+
+    public int size() {
+        return mOps.size();
+    }
+
+    public int getKind(int i) {
+        return mOps.get(i).kind;
+    }
+
+    public int getPosition(int i) {
+        return mOps.get(i).position;
+    }
+
+    // the panel count, or for a move the position moved to
+    public int getCount(int i) {
+        return mOps.get(i).count;
+    }
+
+    // where each old panel ends up, or -1 for one removed, given the
+    // number of panels afterwards; changed is filled in by new position
+    // with the panels that need binding again, inserts included
+    int[] mapPositions(int newCount, boolean[] changed) {
+        int oldCount = newCount;
+        int inserted = 0;
+        for ( Op o : mOps ) {
+            if ( INSERT == o.kind ) {
+                oldCount -= o.count;
+                inserted += o.count;
+            } else if ( REMOVE == o.kind ) {
+                oldCount += o.count;
+            }
+        }
+        if ( oldCount < 0 ) {
+            throw new IllegalArgumentException("changes do not fit " + newCount + " panels");
+        }
+
+        // old positions, INSERTED, or -2 - old for a changed panel; the
+        // list never grows past the old panels and every insert
+        final int[] work = new int[oldCount + inserted];
+        int n = oldCount;
+        for ( int i = 0; i < oldCount; i++ ) {
+            work[i] = i;
+        }
+        for ( Op o : mOps ) {
+            switch (o.kind) {
+                case INSERT:
+                    System.arraycopy(work, o.position, work, o.position + o.count, n - o.position);
+                    for ( int i = o.position; i < o.position + o.count; i++ ) {
+                        work[i] = INSERTED;
+                    }
+                    n += o.count;
+                    break;
+
+                case REMOVE:
+                    System.arraycopy(work, o.position + o.count, work, o.position,
+                                     n - o.position - o.count);
+                    n -= o.count;
+                    break;
+
+                case MOVE: {
+                    final int e = work[o.position];
+                    if ( o.position < o.count ) {
+                        System.arraycopy(work, o.position + 1, work, o.position, o.count - o.position);
+                    } else {
+                        System.arraycopy(work, o.count, work, o.count + 1, o.position - o.count);
+                    }
+                    work[o.count] = e;
+                    break;
+                }
+
+                case CHANGE:
+                    for ( int i = o.position; i < o.position + o.count; i++ ) {
+                        if ( work[i] >= 0 ) {
+                            work[i] = -2 - work[i];
+                        }
+                    }
+                    break;
+            }
+        }
+
+        final int[] rv = new int[oldCount];
+        for ( int i = 0; i < oldCount; i++ ) {
+            rv[i] = -1;
+        }
+        for ( int i = 0; i < newCount; i++ ) {
+            final int e = work[i];
+            if ( e >= 0 ) {
+                rv[e] = i;
+            } else {
+                changed[i] = true;
+                if ( e != INSERTED ) {
+                    rv[-2 - e] = i;
+                }
+            }
+        }
+        return rv;
+    }
+
+    // the changes that turn the old list into the new one: removes
+    // from the end, then inserts and moves in new order, then the
+    // panels whose contents differ. Moves are not minimal, but a move
+    // costs no binding. Safe on any thread.
+    //
+    // Once the first j new panels are in place, the rest of the list is
+    // the survivors not yet placed, still in old order, so a survivor's
+    // position is j plus the number of those before it; a Fenwick tree
+    // over the old positions keeps that count, and the whole diff is
+    // O(n log n)
+    public static PanelChanges calculate(Differ d) {
+        final PanelChanges rv = new PanelChanges();
+        final int oc = d.getOldCount();
+        final int nc = d.getNewCount();
+
+        final HashMap<Long, Integer> oldPositions = new HashMap<Long, Integer>(oc * 2);
+        for ( int i = 0; i < oc; i++ ) {
+            oldPositions.put(d.getOldId(i), i);
+        }
+
+        // the old position of each new panel, or INSERTED
+        final int[] from = new int[nc];
+        final boolean[] kept = new boolean[oc];
+        for ( int j = 0; j < nc; j++ ) {
+            final Integer o = oldPositions.get(d.getNewId(j));
+            from[j] = null == o ? INSERTED : o;
+            if ( null != o ) {
+                kept[o] = true;
+            }
+        }
+
+        final int[] unplaced = new int[oc + 1];
+        for ( int i = oc - 1; i >= 0; i-- ) {
+            if ( kept[i] ) {
+                treeAdd(unplaced, i, 1);
+            } else {
+                rv.remove(i, 1);
+            }
+        }
+
+        for ( int j = 0; j < nc; j++ ) {
+            final int o = from[j];
+            if ( INSERTED == o ) {
+                rv.insert(j, 1);
+            } else {
+                final int k = j + treeCount(unplaced, o);
+                if ( k != j ) {
+                    rv.move(k, j);
+                }
+                treeAdd(unplaced, o, -1);
+            }
+        }
+
+        for ( int j = 0; j < nc; j++ ) {
+            final int o = from[j];
+            if ( INSERTED != o && !d.areContentsSame(o, j) ) {
+                rv.change(j, 1);
+            }
+        }
+        return rv;
+    }
+
+    private static void treeAdd(int[] tree, int i, int delta) {
+        for ( int k = i + 1; k < tree.length; k += k & -k ) {
+            tree[k] += delta;
+        }
+    }
+
+    // the sum over positions before i
+    private static int treeCount(int[] tree, int i) {
+        int rv = 0;
+        for ( int k = i; k > 0; k -= k & -k ) {
+            rv += tree[k];
+        }
+        return rv;
+    }
+
+    // for lists whose panels never change in place
+    public static PanelChanges calculate(final long[] oldIds, final long[] newIds) {
+        return calculate(new Differ() {
+            public int getOldCount() {
+                return oldIds.length;
+            }
+
+            public int getNewCount() {
+                return newIds.length;
+            }
+
+            public long getOldId(int position) {
+                return oldIds[position];
+            }
+
+            public long getNewId(int position) {
+                return newIds[position];
+            }
+        });
+    }
+
+    // calculate on e and deliver on the main thread; the adapter's data
+    // should be replaced, and the changes applied, in l
+    public static void calculate(final Differ d, Executor e, final Listener l) {
+        final Handler main = new Handler(Looper.getMainLooper());
+        e.execute(new Runnable() {
+            public void run() {
+                final PanelChanges c = calculate(d);
+                main.post(new Runnable() {
+                    public void run() {
+                        l.onChangesCalculated(c);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * Builds panels from an AsyncPanelsAdapter on a worker executor and
+  * hands them back on the main thread, attaching as many per frame as
+  * fit in a time budget. Requests are dropped by panel or all at once
+  * by generation; views that finish after their panel was dropped go
+  * to the recycler instead.
+  *
+  */
+class PanelInflater {
+    interface Host {
+        // attach a built view as panel pi
+        void attachPanel(int pi, View v, int type);
+
+        // a built view no longer wanted by any panel
+        void scrapPanel(View v, int type);
+
+        // createView gave nothing for panel pi, which is still wanted
+        // and no longer pending
+        void panelFailed(int pi, int type);
+
+        // a batch of attaches is done
+        void onPanelsAttached();
+    }
+
+    private static class Built {
+        final int generation;
+        final int pi;
+        final int type;
+        // null when createView failed
+        final View view;
+
+        Built(int generation, int pi, int type, View view) {
+            this.generation = generation;
+            this.pi = pi;
+            this.type = type;
+            this.view = view;
+        }
+    }
+
+    private static Executor sDefaultExecutor;
+
+    private final ViewGroup mParent;
+    private final Host mHost;
+    private final Handler mMain = new Handler(Looper.getMainLooper());
+    private final ConcurrentLinkedQueue<Built> mBuilt = new ConcurrentLinkedQueue<Built>();
+    private final AtomicBoolean mAttachPosted = new AtomicBoolean();
+    // panel -> view type of the requests still wanted
+    private final SparseIntArray mPending = new SparseIntArray();
+    private Executor mExecutor;
+    private volatile int mGeneration;
+    private long mBudgetNanos;
+
+    private final Runnable mPostAttach = new Runnable() {
+        public void run() {
+            // from a worker; the batch itself waits for a frame
+            postAttach();
+        }
+    };
+
+    private final Runnable mAttach = new Runnable() {
+        public void run() {
+            attachBatch();
+        }
+    };
+
+    PanelInflater(ViewGroup parent, Host host, int budgetMillis) {
+        mParent = parent;
+        mHost = host;
+        setBudget(budgetMillis);
+    }
+
+    // a single low priority thread shared by every Panels
+    private static synchronized Executor getDefaultExecutor() {
+        if ( null == sDefaultExecutor ) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    final Thread rv = new Thread(new Runnable() {
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "velour-inflate");
+                    rv.setDaemon(true);
+                    return rv;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    void setExecutor(Executor e) {
+        mExecutor = e;
+    }
+
+    void setBudget(int millis) {
+        mBudgetNanos = millis * 1000000L;
+    }
+
+    boolean isPending(int pi) {
+        return mPending.indexOfKey(pi) >= 0;
+    }
+
+    int getPendingCount() {
+        return mPending.size();
+    }
+
+    int getPendingAt(int i) {
+        return mPending.keyAt(i);
+    }
+
+    void request(final AsyncPanelsAdapter a, final int pi, final int type) {
+        if ( !isPending(pi) ) {
+            mPending.put(pi, type);
+            final int g = mGeneration;
+            // inflaters are not safe to share between threads
+            final LayoutInflater li = LayoutInflater.from(mParent.getContext())
+                .cloneInContext(mParent.getContext());
+            final Executor e = null == mExecutor ? getDefaultExecutor() : mExecutor;
+            e.execute(new Runnable() {
+                public void run() {
+                    if ( g == mGeneration ) {
+                        // a failure goes back to the main thread too, or
+                        // the panel would stay pending for good
+                        View v = null;
+                        try {
+                            v = a.createView(pi, li, mParent);
+                        } catch ( RuntimeException ex ) {
+                            // left for the main thread to build again
+                        }
+                        mBuilt.add(new Built(g, pi, type, v));
+                        if ( mAttachPosted.compareAndSet(false, true) ) {
+                            mMain.post(mPostAttach);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    void cancel(int pi) {
+        mPending.delete(pi);
+    }
+
+    // forget every request; views still being built are thrown away
+    void clear() {
+        mGeneration++;
+        mPending.clear();
+        mBuilt.clear();
+    }
+
+    private void postAttach() {
+        if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ) {
+            mParent.postOnAnimation(mAttach);
+        } else {
+            mParent.post(mAttach);
+        }
+    }
+
+    // at least one view per frame, then as many as fit the budget
+    private void attachBatch() {
+        mAttachPosted.set(false);
+        final long start = System.nanoTime();
+        int attached = 0;
+        Built b = mBuilt.poll();
+        while ( null != b ) {
+            if ( b.generation == mGeneration ) {
+                if ( mPending.get(b.pi, PanelsAdapter.IGNORE_ITEM_VIEW_TYPE - 1) == b.type ) {
+                    mPending.delete(b.pi);
+                    if ( null == b.view ) {
+                        mHost.panelFailed(b.pi, b.type);
+                    } else {
+                        mHost.attachPanel(b.pi, b.view, b.type);
+                    }
+                    attached++;
+                } else if ( null != b.view ) {
+                    mHost.scrapPanel(b.view, b.type);
+                }
+            }
+
+            if ( System.nanoTime() - start < mBudgetNanos ) {
+                b = mBuilt.poll();
+            } else {
+                b = null;
+            }
+        }
+
+        if ( !mBuilt.isEmpty() && mAttachPosted.compareAndSet(false, true) ) {
+            postAttach();
+        }
+        if ( attached > 0 ) {
+            mHost.onPanelsAttached();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.view.View;
+
+/**
+  *
+  * Applied to each live panel whenever Panels moves it while
+  * translation scrolling is in effect. position is the panel's
+  * offset from the visible window in panel widths: 0 when it fills
+  * the window, -1 one panel to the left and 1 one panel to the
+  * right. Changing view properties such as alpha or translation here
+  * costs no extra redraw of the panel's content.
+  *
+  */
+public abstract class PanelTransformer {
+    public abstract void transformPanel(View panel, float position);
+}
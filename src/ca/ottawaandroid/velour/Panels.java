@@ -25,32 +25,144 @@ package ca.ottawaandroid.velour;
   *
   */
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.Scroller;
+import android.view.ViewParent;
+import android.view.animation.AnimationUtils;
 
 public class Panels extends ViewGroup {
     public static final int INVALID_PANEL = -1;
 
-    private Scroller mScroller;
-    private int mCurrent;
-    private int mNext;
-    private int mCurrentScrollX;
+    private static final int WINDOW_POPULATE = 0;
+    private static final int WINDOW_MEASURE = 1;
+    private static final int WINDOW_LAYOUT = 2;
+    private static final int WINDOW_TRANSLATE = 3;
+    private static final int WINDOW_PROMOTE = 4;
+    private static final int WINDOW_TRACK = 5;
+
+    // the steps idle prefetching takes for each neighbouring panel, one
+    // step per idle slice
+    private static final int PREFETCH_ATTACH = 0;
+    private static final int PREFETCH_MEASURE = 1;
+    private static final int PREFETCH_LAYOUT = 2;
+    private static final int PREFETCH_RENDER = 3;
+
+    // where a panel is in its visibility lifecycle; hidden panels are
+    // not tracked
+    private static final int PANEL_HIDDEN = 0;
+    private static final int PANEL_APPEARING = 1;
+    private static final int PANEL_VISIBLE = 2;
+    private static final int PANEL_DISAPPEARING = 3;
+
+    private static final int NOTIFY_WILL_APPEAR = 0;
+    private static final int NOTIFY_APPEARED = 1;
+    private static final int NOTIFY_WILL_DISAPPEAR = 2;
+    private static final int NOTIFY_DISAPPEARED = 3;
+    private static final int NOTIFY_LEFT_WINDOW = 4;
+
+    // remembers the specs a panel was last measured with, so that an
+    // unchanged panel is not measured again
+    public static class LayoutParams extends ViewGroup.LayoutParams {
+        boolean measured;
+        int widthSpec;
+        int heightSpec;
+        // given a hardware layer by Panels for the current motion
+        boolean promoted;
+
+        public LayoutParams(int w, int h) {
+            super(w, h);
+        }
+
+        public LayoutParams(Context ctx, AttributeSet as) {
+            super(ctx, as);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    private final PagingEngine.Clock mClock = new PagingEngine.Clock() {
+        public long now() {
+            return AnimationUtils.currentAnimationTimeMillis();
+        }
+    };
+    private final PagingEngine mEngine = new PagingEngine(new EngineHost(), mClock);
     private boolean mFirstLayout = true;
 
     private boolean mWrapPermitted = true;
     private int mFlingVelocity = 1000;
     private int mDefaultPanel = 0;
     private int mTouchFuzz = 0;
+    private int mOffscreenPanels = 1;
+    private int mSnapshotCacheKb = 0;
+    private boolean mWrapSnapshotted = false;
+    private boolean mTranslationScrolling = false;
+    private boolean mMotionLayers = false;
+    private boolean mFlingPhysics = false;
+    private boolean mIdlePrefetch = false;
+    private boolean mPrefetchRender = false;
+    private int mAttachBudget = 4;
+    private boolean mLayersPromoted;
+
+    private PanelTransformer mTransformer;
+
+    private final SnapshotCache mSnapshots = new SnapshotCache(0);
+    private final PanelsCounters mCounters = new PanelsCounters();
+    private PanelsMetrics mMetrics;
+    private GestureRecording mRecording;
+    private int mWidthSpec;
+    private int mHeightSpec;
+    private boolean mHaveSpecs;
+    private final Paint mSnapshotPaint = new Paint();
+    // the panels given layers for this motion, so that settling does
+    // not walk every child
+    private final ArrayList<View> mPromoted = new ArrayList<View>();
+
+    private PanelsAdapter mAdapter;
+    private RecycleBin mRecycler = new RecycleBin();
+    private boolean mRecyclerShared;
+    private final PanelInflater mInflater = new PanelInflater(this, new InflaterHost(), mAttachBudget);
+    private Drawable mPlaceholder;
+    // the item shown by the current panel, when the adapter has stable
+    // ids
+    private long mCurrentId;
+    private boolean mCurrentIdValid;
+    private final SparseArray<View> mActivePanels = new SparseArray<View>();
+    private final SparseIntArray mActiveTypes = new SparseIntArray();
+    private final SparseIntArray mPanelStates = new SparseIntArray();
+    // the panels in the window when there is no adapter to recycle them
+    private final SparseIntArray mWindowPanels = new SparseIntArray();
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            onDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            onDataSetChanged();
+        }
+    };
 
     public static abstract class Listener {
     	public void onPanelMotion(int panelIndex) {
@@ -63,97 +175,1170 @@ public class Panels extends ViewGroup {
 
 		public void onPanelPending(int mCurrent) {
 		}
+
+		// position is the panel at the left edge and positionOffset
+		// how far (0..1) it has scrolled off; delivered at most once
+		// per frame
+		public void onPanelScrolled(int position, float positionOffset) {
+		}
+
+		// return true to receive onPanelPending only when the pending
+		// panel changes rather than on every scrolled pixel
+		public boolean onlyPendingChanges() {
+			return false;
+		}
+
+		// the panel is starting to come into view
+		public void onPanelWillAppear(int panelIndex, View panel) {
+		}
+
+		// the panel has come to rest as the current panel
+		public void onPanelAppeared(int panelIndex, View panel) {
+		}
+
+		// the resting panel is starting to move; when it comes back to
+		// rest instead, onPanelAppeared follows
+		public void onPanelWillDisappear(int panelIndex, View panel) {
+		}
+
+		// no part of the panel can be seen any more
+		public void onPanelDisappeared(int panelIndex, View panel) {
+		}
+
+		// the panel is no longer within getOffscreenPanels() of the
+		// current one; with an adapter it is about to be recycled
+		public void onPanelLeftWindow(int panelIndex, View panel) {
+		}
     }
     
     public Panels(Context ctx) {
         super(ctx);
+        setupControl();
+    }
+
+    public Panels(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+        setup(as);
+    }
+
+    public Panels(Context ctx, AttributeSet as) {
+        super(ctx, as);
+        setup(as);
+    }
+
+    private void setup(AttributeSet as) {
+        setupOptions(as);
+        setupControl();
+    }
+
+    private void setupControl() {
+        final ViewConfiguration vc = ViewConfiguration.get(getContext());
+        mMaximumVelocity = vc.getScaledMaximumFlingVelocity();
+        mTouchSlop = vc.getScaledTouchSlop();
+        mEngine.setScreenPpi(getScreenPpi());
+        mInflater.setBudget(getAttachBudget());
+        mEngine.setCurrent(getDefaultPanel());
+    }
+
+	private void notifyPanelChanged(int pi) {
+		final int d = pi - mPrefetchFrom;
+		if ( 0 != d ) {
+			// a change of more than half the panels went round an end
+			final boolean wrapped = Math.abs(d) * 2 > getPanelCount();
+			mPrefetchDirection = (d > 0) != wrapped ? 1 : -1;
+		}
+		mPrefetchFrom = pi;
+		mCurrentIdValid = null != mAdapter && mAdapter.hasStableIds()
+			&& pi >= 0 && pi < mAdapter.getCount();
+		if ( mCurrentIdValid ) {
+			mCurrentId = mAdapter.getItemId(pi);
+		}
+		mLastPending = INVALID_PANEL;
+		refreshWindow();
+		final int c = mListeners.size();
+		for ( int i = 0; i < c; i++ ) {
+			mListeners.get(i).onPanelChanged(pi);
+			mCounters.mCallbacks++;
+		}
+		updatePanelVisibility();
+	}
+
+	private void notifyPanelMotion(int pi) {
+		final int c = mListeners.size();
+		for ( int i = 0; i < c; i++ ) {
+			mListeners.get(i).onPanelMotion(pi);
+			mCounters.mCallbacks++;
+		}
+	}
+
+	private void notifyPanelVisibility(int event, int pi, View v) {
+		final int c = mListeners.size();
+		for ( int i = 0; i < c; i++ ) {
+			final Listener li = mListeners.get(i);
+			switch (event) {
+				case NOTIFY_WILL_APPEAR:
+					li.onPanelWillAppear(pi, v);
+					break;
+
+				case NOTIFY_APPEARED:
+					li.onPanelAppeared(pi, v);
+					break;
+
+				case NOTIFY_WILL_DISAPPEAR:
+					li.onPanelWillDisappear(pi, v);
+					break;
+
+				case NOTIFY_DISAPPEARED:
+					li.onPanelDisappeared(pi, v);
+					break;
+
+				case NOTIFY_LEFT_WINDOW:
+					li.onPanelLeftWindow(pi, v);
+					break;
+			}
+			mCounters.mCallbacks++;
+		}
+
+		if ( null != mAdapter ) {
+			switch (event) {
+				case NOTIFY_WILL_APPEAR:
+					mAdapter.onPanelWillAppear(pi, v);
+					break;
+
+				case NOTIFY_APPEARED:
+					mAdapter.onPanelAppeared(pi, v);
+					break;
+
+				case NOTIFY_WILL_DISAPPEAR:
+					mAdapter.onPanelWillDisappear(pi, v);
+					break;
+
+				case NOTIFY_DISAPPEARED:
+					mAdapter.onPanelDisappeared(pi, v);
+					break;
+
+				case NOTIFY_LEFT_WINDOW:
+					mAdapter.onPanelLeftWindow(pi, v);
+					break;
+			}
+		}
+	}
+
+    private void setupOptions(AttributeSet as) {
+        // TODO: not read properly yet..
+        mWrapPermitted = as.getAttributeBooleanValue("velour", "permit_wrapping", mWrapPermitted);
+        mFlingVelocity = as.getAttributeIntValue("velour", "fling_velocity", mFlingVelocity);
+        mDefaultPanel = as.getAttributeIntValue("velour", "default_panel", mDefaultPanel);
+        mTouchFuzz = as.getAttributeIntValue("velour", "touch_fuzz", mTouchFuzz);
+        mOffscreenPanels = as.getAttributeIntValue("velour", "offscreen_panels", mOffscreenPanels);
+        mSnapshotCacheKb = as.getAttributeIntValue("velour", "snapshot_cache_kb", mSnapshotCacheKb);
+        mWrapSnapshotted = as.getAttributeBooleanValue("velour", "wrap_snapshots", mWrapSnapshotted);
+        mTranslationScrolling = as.getAttributeBooleanValue("velour", "translation_scrolling", mTranslationScrolling);
+        mMotionLayers = as.getAttributeBooleanValue("velour", "motion_layers", mMotionLayers);
+        mFlingPhysics = as.getAttributeBooleanValue("velour", "fling_physics", mFlingPhysics);
+        mIdlePrefetch = as.getAttributeBooleanValue("velour", "idle_prefetch", mIdlePrefetch);
+        mPrefetchRender = as.getAttributeBooleanValue("velour", "prefetch_render", mPrefetchRender);
+        mAttachBudget = as.getAttributeIntValue("velour", "attach_budget", mAttachBudget);
+    }
+
+    // Overrideable
+    protected int getDefaultPanel() {
+        return mDefaultPanel;
+    }
+
+    protected int getTouchFuzz() {
+        return mTouchFuzz;
+    }
+
+    protected boolean isWrappingPermitted() {
+        return mWrapPermitted;
+    }
+
+    protected int getFlingVelocity() {
+        return mFlingVelocity;
+    }
+
+    // number of panels on either side of the current one that an
+    // adapter keeps attached. With none, the panels in view while
+    // dragging or settling are still attached as they come in
+    protected int getOffscreenPanels() {
+        return mOffscreenPanels;
+    }
+
+    // budget for motion snapshots; 0 sizes it to three panels
+    protected int getSnapshotCacheKb() {
+        return mSnapshotCacheKb;
+    }
+
+    // draw wrapped panels from a snapshot instead of live; cheaper for
+    // very heavy panels, but their content is frozen for the gesture
+    protected boolean isWrapSnapshotted() {
+        return mWrapSnapshotted;
+    }
+
+    // move the live panels with per-child translation instead of
+    // scrolling the group; only effective from honeycomb on
+    protected boolean isTranslationScrollingRequested() {
+        return mTranslationScrolling;
+    }
+
+    // give the moving panels hardware layers for the length of a drag
+    // or fling; before honeycomb the snapshot path is used as before
+    protected boolean isMotionLayersRequested() {
+        return mMotionLayers;
+    }
+
+    // settle with OverScroller-style deceleration timed by the release
+    // velocity; fast flings cross several panels, and a touch catches
+    // a settling scroll instead of finishing it
+    protected boolean isFlingPhysics() {
+        return mFlingPhysics;
+    }
+
+    // attach only the current and next panels when the panel changes,
+    // and bring in their neighbours a step at a time while the main
+    // thread is idle, the likely direction first
+    protected boolean isIdlePrefetch() {
+        return mIdlePrefetch;
+    }
+
+    // also give prefetched neighbours their hardware layers ahead of
+    // the drag; only effective with motion layers
+    protected boolean isPrefetchRender() {
+        return mPrefetchRender;
+    }
+
+    // milliseconds per frame spent attaching panels built in the
+    // background by an AsyncPanelsAdapter; one is always attached
+    protected int getAttachBudget() {
+        return mAttachBudget;
+    }
+    // end overrideable
+
+    // for panels built in code rather than inflated with attributes
+    public void setWrappingPermitted(boolean wp) {
+        mWrapPermitted = wp;
+    }
+
+    public void setFlingVelocity(int fv) {
+        mFlingVelocity = fv;
+    }
+
+    public void setTouchFuzz(int tf) {
+        mTouchFuzz = tf;
+    }
+
+    public void setDefaultPanel(int pi) {
+        mDefaultPanel = pi;
+        if ( mFirstLayout ) {
+            recordNavigation(GestureRecording.NAVIGATE_CURRENT, getDefaultPanel());
+            mEngine.setCurrent(getDefaultPanel());
+        }
+    }
+
+    public void setWrapSnapshotted(boolean ws) {
+        mWrapSnapshotted = ws;
+        invalidate();
+    }
+
+    public void setTranslationScrolling(boolean ts) {
+        if ( isTranslationScrolling() ) {
+            resetTranslations();
+        }
+
+        mTranslationScrolling = ts;
+        if ( isTranslationScrolling() ) {
+            scrollTo(0, 0);
+            applyTranslations();
+        } else {
+            scrollTo(mEngine.getScrollX(), 0);
+        }
+        invalidate();
+    }
+
+    public void setMotionLayers(boolean ml) {
+        mMotionLayers = ml;
+    }
+
+    public void setFlingPhysics(boolean fp) {
+        mFlingPhysics = fp;
+    }
+
+    public void setIdlePrefetch(boolean ip) {
+        mIdlePrefetch = ip;
+        if ( !ip ) {
+            cancelPrefetch();
+            refreshWindow();
+        }
+    }
+
+    public void setPrefetchRender(boolean pr) {
+        mPrefetchRender = pr;
+    }
+
+    public void setAttachBudget(int ms) {
+        mAttachBudget = ms;
+        mInflater.setBudget(getAttachBudget());
+    }
+
+    // where an AsyncPanelsAdapter builds its panels; null for the
+    // shared background thread
+    public void setInflationExecutor(Executor e) {
+        mInflater.setExecutor(e);
+    }
+
+    // drawn in place of panels still being built
+    public void setPanelPlaceholder(Drawable d) {
+        mPlaceholder = d;
+        invalidate();
+    }
+
+    public void setPanelTransformer(PanelTransformer t) {
+        mTransformer = t;
+        if ( isTranslationScrolling() ) {
+            applyTranslations();
+        }
+    }
+
+    public void setOffscreenPanels(int op) {
+        mOffscreenPanels = op;
+        refreshWindow();
+    }
+
+    // recycle panels through b, which may be shared with other Panels;
+    // null goes back to a bin of this Panels' own
+    public void setRecycleBin(RecycleBin b) {
+        mRecyclerShared = null != b;
+        mRecycler = mRecyclerShared ? b : new RecycleBin();
+    }
+
+    public RecycleBin getRecycleBin() {
+        return mRecycler;
+    }
+
+    // come to rest on pi with fresh panels from the adapter, as when a
+    // list row holding this Panels is bound to another item. The old
+    // panels go to the recycle bin and, for a shared bin, usually come
+    // straight back out of it
+    public void resetPanels(int pi) {
+        cancelPrefetch();
+        demoteMotionPanels();
+        for ( int i = mActivePanels.size() - 1; i >= 0; i-- ) {
+            recyclePanelAt(i, false);
+        }
+        mInflater.clear();
+        mSnapshots.clear();
+
+        mFirstLayout = true;
+        recordNavigation(GestureRecording.NAVIGATE_RESET_PANELS, mEngine.clamp(pi));
+        mEngine.reset(mEngine.clamp(pi));
+        requestLayout();
+        invalidate();
+    }
+
+    public SnapshotCache getSnapshotCache() {
+        return mSnapshots;
+    }
+
+    public PanelsCounters getCounters() {
+        return mCounters;
+    }
+
+    // null turns timing off
+    public void setMetrics(PanelsMetrics m) {
+        mMetrics = m;
+    }
+
+    public PanelsMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    // record what the paging engine is fed from here on into r,
+    // replacing whatever r held
+    public void startRecording(GestureRecording r) {
+        r.begin(getWidth(), getPanelCount(), isWrappingPermitted(), getFlingVelocity(),
+                getTouchFuzz(), mTouchSlop, isFlingPhysics(), getScreenPpi(),
+                mEngine.getCurrent(), mEngine.getScrollX(), mClock.now());
+        mRecording = r;
+    }
+
+    public void stopRecording() {
+        mRecording = null;
+    }
+
+    private float getScreenPpi() {
+        return getResources().getDisplayMetrics().density * 160.0f;
     }
 
-    public Panels(Context ctx, AttributeSet as, int defStyle) {
-        super(ctx, as, defStyle);
-        setup(as);
+    // the panel count goes along so that a replay follows data changes
+    private void recordNavigation(int op, int pi) {
+        if ( null != mRecording ) {
+            mRecording.addNavigation(op, mClock.now(), pi, getPanelCount());
+        }
+    }
+
+    private void resetEngine(int pi) {
+        recordNavigation(GestureRecording.NAVIGATE_RESET, pi);
+        mEngine.reset(pi);
+    }
+
+    private void recordEvent(int kind, MotionEvent e, float vx) {
+        final int hs = e.getHistorySize();
+        final GestureRecording.Event re = mRecording.addEvent(kind, e.getAction(), mClock.now(),
+                e.getEventTime(), e.getX(), e.getY(), vx, hs);
+        for ( int h = 0; h < hs; h++ ) {
+            re.historyTimes[h] = e.getHistoricalEventTime(h);
+            re.historyX[h] = e.getHistoricalX(h);
+            re.historyY[h] = e.getHistoricalY(h);
+        }
+    }
+
+    public void setAdapter(PanelsAdapter a) {
+        if ( null != mAdapter ) {
+            mAdapter.unregisterDataSetObserver(mObserver);
+        }
+
+        // the old panels leave by the usual route, so their lifecycle
+        // is closed off
+        for ( int i = mActivePanels.size() - 1; i >= 0; i-- ) {
+            recyclePanelAt(i, false);
+        }
+        for ( int i = mWindowPanels.size() - 1; i >= 0; i-- ) {
+            panelLeftWindow(mWindowPanels.keyAt(i), getChildAt(mWindowPanels.keyAt(i)));
+        }
+        mWindowPanels.clear();
+
+        removeAllViews();
+        mActivePanels.clear();
+        mActiveTypes.clear();
+        mInflater.clear();
+        if ( !mRecyclerShared ) {
+            mRecycler.clear();
+        }
+        mSnapshots.clear();
+
+        mAdapter = a;
+        if ( null != mAdapter ) {
+            mAdapter.registerDataSetObserver(mObserver);
+        }
+
+        mFirstLayout = true;
+        resetEngine(mEngine.clamp(mEngine.getCurrent()));
+        requestLayout();
+    }
+
+    public PanelsAdapter getAdapter() {
+        return mAdapter;
+    }
+
+    public int getPanelCount() {
+        return null == mAdapter ? getChildCount() : mAdapter.getCount();
+    }
+
+    // null when an adapter is set and the panel is out of range
+    public View getPanelAt(int pi) {
+        return null == mAdapter ? getChildAt(pi) : mActivePanels.get(pi);
+    }
+
+    private int indexOfPanel(View ch) {
+        int rv = INVALID_PANEL;
+        if ( null == mAdapter ) {
+            rv = indexOfChild(ch);
+        } else {
+            final int i = mActivePanels.indexOfValue(ch);
+            if ( i >= 0 ) {
+                rv = mActivePanels.keyAt(i);
+            }
+        }
+        return rv;
+    }
+
+    private boolean isPanelWanted(int pi) {
+        return mEngine.isPanelNear(pi, getOffscreenPanels());
+    }
+
+    private void recyclePanelAt(int i, boolean inLayout) {
+        final View v = mActivePanels.valueAt(i);
+        panelLeftWindow(mActivePanels.keyAt(i), v);
+        if ( inLayout ) {
+            removeViewInLayout(v);
+        } else {
+            removeView(v);
+        }
+        mSnapshots.remove(v);
+        if ( mLayersPromoted ) {
+            demotePanel(v);
+            mPromoted.remove(v);
+        }
+        if ( isTranslationScrolling() ) {
+            // the next Panels to use it may not translate
+            v.setTranslationX(0);
+            if ( null != mTransformer ) {
+                mTransformer.transformPanel(v, 0);
+            }
+        }
+        mRecycler.addScrapView(v, mActiveTypes.get(mActivePanels.keyAt(i)));
+        mActiveTypes.delete(mActivePanels.keyAt(i));
+        mActivePanels.removeAt(i);
+    }
+
+    // panels with nothing to recycle are built in the background when
+    // the adapter allows it, and attached by the inflater later
+    private void addPanel(int pi, boolean inLayout) {
+        final int type = mAdapter.getItemViewType(pi);
+        final View convert = mRecycler.getScrapView(type);
+        if ( null == convert && mAdapter instanceof AsyncPanelsAdapter ) {
+            mInflater.request((AsyncPanelsAdapter) mAdapter, pi, type);
+        } else {
+            final View v = mAdapter.getView(pi, convert, this);
+
+            if ( null != convert && v != convert ) {
+                mRecycler.addScrapView(convert, type);
+            }
+            attachPanel(pi, v, type, inLayout);
+        }
+    }
+
+    private void attachPanel(int pi, View v, int type, boolean inLayout) {
+        ViewGroup.LayoutParams lp = v.getLayoutParams();
+        if ( null == lp ) {
+            lp = generateDefaultLayoutParams();
+        }
+        if ( inLayout ) {
+            addViewInLayout(v, -1, lp, true);
+        } else {
+            addView(v, -1, lp);
+        }
+        mActivePanels.put(pi, v);
+        mActiveTypes.put(pi, type);
+    }
+
+    // attach the panels within margin of the current (and next) panel,
+    // recycling the ones that have moved out of the window
+    private void populate(boolean inLayout, int margin) {
+        if ( null != mAdapter ) {
+            final int cc = mAdapter.getCount();
+
+            for ( int i = mActivePanels.size() - 1; i >= 0; i-- ) {
+                final int pi = mActivePanels.keyAt(i);
+                if ( pi >= cc || !isPanelWanted(pi) ) {
+                    recyclePanelAt(i, inLayout);
+                }
+            }
+            for ( int i = mInflater.getPendingCount() - 1; i >= 0; i-- ) {
+                final int pi = mInflater.getPendingAt(i);
+                if ( pi >= cc || !isPanelWanted(pi) ) {
+                    mInflater.cancel(pi);
+                }
+            }
+
+            visitWindow(WINDOW_POPULATE, inLayout, margin);
+        } else {
+            final int cc = getChildCount();
+
+            for ( int i = mWindowPanels.size() - 1; i >= 0; i-- ) {
+                final int pi = mWindowPanels.keyAt(i);
+                if ( pi >= cc || !isPanelWanted(pi) ) {
+                    mWindowPanels.delete(pi);
+                    panelLeftWindow(pi, getChildAt(pi));
+                }
+            }
+
+            visitWindow(WINDOW_TRACK, inLayout);
+        }
+    }
+
+    private void panelLeftWindow(int pi, View v) {
+        if ( PANEL_HIDDEN != mPanelStates.get(pi, PANEL_HIDDEN) ) {
+            hidePanel(mPanelStates.indexOfKey(pi));
+        }
+        if ( null != v ) {
+            notifyPanelVisibility(NOTIFY_LEFT_WINDOW, pi, v);
+        }
+    }
+
+    // bring the lifecycle of the panels in view up to date with the
+    // scroll: at most two panels can be seen, and only the current one
+    // at rest
+    private void updatePanelVisibility() {
+        final int w = getWidth();
+        if ( w > 0 && getPanelCount() > 0 ) {
+            final int sx = mEngine.getScrollX();
+            final int first = mEngine.getScrolledPanel();
+            final int second = 0 != sx % w ? mEngine.normalize(first + 1) : INVALID_PANEL;
+            final boolean rest = !mEngine.isInMotion()
+                && mEngine.isScrollFinished()
+                && !mEngine.isNextValid()
+                && sx == mEngine.getCurrent() * w;
+
+            for ( int i = mPanelStates.size() - 1; i >= 0; i-- ) {
+                final int pi = mPanelStates.keyAt(i);
+                if ( pi != first && pi != second ) {
+                    hidePanel(i);
+                }
+            }
+
+            updatePanelState(first, rest);
+            if ( second != first ) {
+                updatePanelState(second, rest);
+            }
+        }
+    }
+
+    private void updatePanelState(int pi, boolean rest) {
+        if ( pi >= 0 && pi < getPanelCount() && null != getPanelAt(pi) ) {
+            final int state = mPanelStates.get(pi, PANEL_HIDDEN);
+            if ( rest && pi == mEngine.getCurrent() ) {
+                if ( PANEL_VISIBLE != state ) {
+                    mPanelStates.put(pi, PANEL_VISIBLE);
+                    if ( PANEL_HIDDEN == state ) {
+                        notifyPanelVisibility(NOTIFY_WILL_APPEAR, pi, getPanelAt(pi));
+                    }
+                    notifyPanelVisibility(NOTIFY_APPEARED, pi, getPanelAt(pi));
+                }
+            } else if ( PANEL_HIDDEN == state ) {
+                mPanelStates.put(pi, PANEL_APPEARING);
+                notifyPanelVisibility(NOTIFY_WILL_APPEAR, pi, getPanelAt(pi));
+            } else if ( PANEL_VISIBLE == state ) {
+                mPanelStates.put(pi, PANEL_DISAPPEARING);
+                notifyPanelVisibility(NOTIFY_WILL_DISAPPEAR, pi, getPanelAt(pi));
+            }
+        }
+    }
+
+    private void hidePanel(int i) {
+        final int pi = mPanelStates.keyAt(i);
+        final int state = mPanelStates.valueAt(i);
+        final View v = getPanelAt(pi);
+        mPanelStates.delete(pi);
+        if ( null != v ) {
+            if ( PANEL_VISIBLE == state ) {
+                notifyPanelVisibility(NOTIFY_WILL_DISAPPEAR, pi, v);
+            }
+            notifyPanelVisibility(NOTIFY_DISAPPEARED, pi, v);
+        }
+    }
+
+    // visit each panel within getOffscreenPanels() of the current and
+    // next panels; where the two overlap a panel is visited twice,
+    // which the measure and layout checks make cheap
+    private void visitWindow(int op, boolean inLayout) {
+        visitWindow(op, inLayout, getOffscreenPanels());
+    }
+
+    private void visitWindow(int op, boolean inLayout, int margin) {
+        final int cc = getPanelCount();
+        visitAround(mEngine.getCurrent(), cc, op, inLayout, margin);
+        if ( mEngine.isNextValid() ) {
+            visitAround(mEngine.clamp(mEngine.getNext()), cc, op, inLayout, margin);
+        }
+        if ( mEngine.isScrollMoving() ) {
+            final int sn = mEngine.getScrolledNext();
+            visitAround(mEngine.getScrolledPanel(), cc, op, inLayout, margin);
+            if ( INVALID_PANEL != sn ) {
+                visitAround(sn, cc, op, inLayout, margin);
+            }
+        }
+    }
+
+    // a scroll that crosses panels brings the ones it reaches into the
+    // window as it gets to them, and lets go of the ones it has passed
+    private void followScroll() {
+        if ( mEngine.isScrollMoving() ) {
+            final int first = mEngine.getScrolledPanel();
+            final int second = mEngine.getScrolledNext();
+            if ( first != mScrolledFirst || second != mScrolledSecond ) {
+                mScrolledFirst = first;
+                mScrolledSecond = second;
+                fillWindow(isIdlePrefetch() ? 0 : getOffscreenPanels());
+                if ( mLayersPromoted ) {
+                    promoteMotionPanels();
+                }
+            }
+        } else {
+            mScrolledFirst = INVALID_PANEL;
+            mScrolledSecond = INVALID_PANEL;
+        }
+    }
+
+    private void visitAround(int around, int cc, int op, boolean inLayout, int os) {
+        for ( int i = around - os; i <= around + os; i++ ) {
+            final int pi = mEngine.normalize(i);
+            if ( pi >= 0 && pi < cc ) {
+                visitPanel(pi, op, inLayout);
+            }
+        }
+    }
+
+    private void visitPanel(int pi, int op, boolean inLayout) {
+        switch (op) {
+            case WINDOW_POPULATE:
+                if ( mActivePanels.indexOfKey(pi) < 0 && !mInflater.isPending(pi) ) {
+                    addPanel(pi, inLayout);
+                }
+                break;
+
+            case WINDOW_MEASURE:
+                measurePanel(getPanelAt(pi));
+                break;
+
+            case WINDOW_LAYOUT:
+                layoutPanel(pi, getPanelAt(pi));
+                break;
+
+            case WINDOW_TRANSLATE:
+                translatePanel(pi, getPanelAt(pi));
+                break;
+
+            case WINDOW_PROMOTE:
+                promotePanel(getPanelAt(pi));
+                break;
+
+            case WINDOW_TRACK:
+                mWindowPanels.put(pi, 1);
+                break;
+        }
+    }
+
+    private boolean isMotionLayers() {
+        return isMotionLayersRequested()
+            && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    // called as each motion starts, and again when a scroll brings new
+    // panels into the window; panels that already have a layer of
+    // their own are left alone
+    private void promoteMotionPanels() {
+        if ( isMotionLayers() ) {
+            mLayersPromoted = true;
+            visitWindow(WINDOW_PROMOTE, false);
+        }
+    }
+
+    // the child's params as Panels' own. A child can be given params of
+    // another type after it was added, and those are replaced, leaving
+    // it to be measured afresh
+    private LayoutParams panelParams(View ch) {
+        final ViewGroup.LayoutParams p = ch.getLayoutParams();
+        LayoutParams rv;
+        if ( checkLayoutParams(p) ) {
+            rv = (LayoutParams) p;
+        } else {
+            rv = (LayoutParams) (null == p ? generateDefaultLayoutParams() : generateLayoutParams(p));
+            ch.setLayoutParams(rv);
+        }
+        return rv;
+    }
+
+    private void promotePanel(View ch) {
+        if ( null != ch ) {
+            final LayoutParams lp = panelParams(ch);
+            if ( !lp.promoted && View.LAYER_TYPE_NONE == ch.getLayerType() ) {
+                lp.promoted = true;
+                mPromoted.add(ch);
+                mCounters.mPromotions++;
+                ch.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                if ( ch.isHardwareAccelerated() && null != ch.getWindowToken() ) {
+                    ch.buildLayer();
+                }
+            }
+        }
+    }
+
+    private void demotePanel(View ch) {
+        final LayoutParams lp = panelParams(ch);
+        if ( lp.promoted ) {
+            lp.promoted = false;
+            ch.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    private void demoteMotionPanels() {
+        if ( mLayersPromoted ) {
+            mLayersPromoted = false;
+            final int c = mPromoted.size();
+            for ( int i = 0; i < c; i++ ) {
+                demotePanel(mPromoted.get(i));
+            }
+            mPromoted.clear();
+        }
+    }
+
+    private boolean isTranslationScrolling() {
+        return isTranslationScrollingRequested()
+            && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    }
+
+    // while translation scrolling the real scroll of the group stays
+    // at 0; the group itself is invalidated so that computeScroll runs
+    // again for the next frame
+    private void panelScrollTo(int x) {
+        if ( isTranslationScrolling() ) {
+            applyTranslations();
+            schedulePanelScrolled();
+            invalidate();
+        } else {
+            scrollTo(x, 0);
+        }
+    }
+
+    private void applyTranslations() {
+        if ( getWidth() > 0 ) {
+            visitWindow(WINDOW_TRANSLATE, false);
+        }
+    }
+
+    // place the panel where it would be if the group were scrolled,
+    // choosing the wrapped copy nearest to the window when wrapping
+    private void translatePanel(int pi, View ch) {
+        if ( null != ch ) {
+            final int vp = mEngine.nearestCopy(pi);
+            final float at = mEngine.getScrollPosition();
+
+            ch.setTranslationX((vp - pi) * getWidth() - mEngine.getScrollX());
+            if ( null != mTransformer ) {
+                mTransformer.transformPanel(ch, vp - at);
+            }
+        }
+    }
+
+    private void resetTranslations() {
+        final int c = getChildCount();
+        for ( int i = 0; i < c; i++ ) {
+            getChildAt(i).setTranslationX(0);
+        }
+    }
+
+    private void measurePanel(View ch) {
+        if ( null != ch && View.GONE != ch.getVisibility() ) {
+            final LayoutParams lp = panelParams(ch);
+            if ( !lp.measured
+                 || lp.widthSpec != mWidthSpec
+                 || lp.heightSpec != mHeightSpec
+                 || ch.isLayoutRequested() ) {
+                ch.measure(mWidthSpec, mHeightSpec);
+                lp.measured = true;
+                lp.widthSpec = mWidthSpec;
+                lp.heightSpec = mHeightSpec;
+                mCounters.mMeasures++;
+            }
+        }
+    }
+
+    private void layoutPanel(int pi, View ch) {
+        if ( null != ch && View.GONE != ch.getVisibility() ) {
+            final int left = pi * getWidth();
+            final int right = left + ch.getMeasuredWidth();
+            final int bottom = ch.getMeasuredHeight();
+            if ( ch.isLayoutRequested()
+                 || ch.getLeft() != left
+                 || ch.getTop() != 0
+                 || ch.getRight() != right
+                 || ch.getBottom() != bottom ) {
+                ch.layout(left, 0, right, bottom);
+                mCounters.mLayouts++;
+            }
+        }
+    }
+
+    // bring the panels around a new current or next panel into the
+    // window; ones that enter it are measured and laid out here rather
+    // than waiting for the next traversal. When prefetching only the
+    // current and next panels are, and idle time does the rest
+    private void refreshWindow() {
+        if ( isIdlePrefetch() ) {
+            fillWindow(0);
+            schedulePrefetch();
+        } else {
+            fillWindow(getOffscreenPanels());
+        }
+    }
+
+    private void fillWindow(int margin) {
+        populate(false, margin);
+        if ( mHaveSpecs && getWidth() > 0 ) {
+            visitWindow(WINDOW_MEASURE, false, margin);
+            visitWindow(WINDOW_LAYOUT, false, margin);
+            if ( isTranslationScrolling() ) {
+                applyTranslations();
+            }
+        }
+    }
+
+    // the unattached neighbours of the current panel, nearest first and
+    // those in the direction of the last change ahead of those behind
+    private void schedulePrefetch() {
+        final int os = getOffscreenPanels();
+        final int cc = getPanelCount();
+        final int cpi = mEngine.getCurrent();
+        final int d = mPrefetchDirection;
+
+        if ( mPrefetchPanels.length < os * 2 ) {
+            mPrefetchPanels = new int[os * 2];
+        }
+        mPrefetchCount = 0;
+        for ( int k = 1; k <= os; k++ ) {
+            addPrefetch(mEngine.normalize(cpi + d * k), cpi, cc);
+            addPrefetch(mEngine.normalize(cpi - d * k), cpi, cc);
+        }
+        mPrefetchPosition = 0;
+        mPrefetchStep = PREFETCH_ATTACH;
+
+        if ( !mPrefetchQueued && mPrefetchCount > 0 ) {
+            mPrefetchQueued = true;
+            Looper.myQueue().addIdleHandler(mPrefetcher);
+        }
     }
 
-    public Panels(Context ctx, AttributeSet as) {
-        super(ctx, as);
-        setup(as);
+    private void addPrefetch(int pi, int cpi, int cc) {
+        boolean add = pi >= 0 && pi < cc && pi != cpi && !isPanelPrepared(pi);
+        for ( int i = 0; i < mPrefetchCount && add; i++ ) {
+            add = mPrefetchPanels[i] != pi;
+        }
+        if ( add ) {
+            mPrefetchPanels[mPrefetchCount++] = pi;
+        }
     }
 
-    private void setup(AttributeSet as) {
-        setupOptions(as);
-        setupControl();
+    // attached, measured against the current specs and in place. Plain
+    // children are always attached, but are measured and laid out only
+    // once they come near, so they are prefetched too
+    private boolean isPanelPrepared(int pi) {
+        final View ch = getPanelAt(pi);
+        boolean rv = false;
+        if ( null != ch ) {
+            final LayoutParams lp = panelParams(ch);
+            rv = View.GONE == ch.getVisibility()
+                || (lp.measured
+                    && lp.widthSpec == mWidthSpec
+                    && lp.heightSpec == mHeightSpec
+                    && !ch.isLayoutRequested()
+                    && ch.getLeft() == pi * getWidth());
+        }
+        return rv;
     }
 
-    private void setupControl() {
-        mScroller = new Scroller(getContext());
-        updateCurrent(getDefaultPanel());
+    private void cancelPrefetch() {
+        if ( mPrefetchQueued ) {
+            mPrefetchQueued = false;
+            Looper.myQueue().removeIdleHandler(mPrefetcher);
+            removeCallbacks(mPrefetchWake);
+        }
     }
 
-	private void updateNext(int pi) {
-		mNext = pi;
-	}
+    // one step of prefetching; false once every neighbour is done, or
+    // when there is nothing to lay out against yet
+    private boolean prefetchSlice() {
+        boolean rv = false;
+        if ( mHaveSpecs && getWidth() > 0 && mPrefetchPosition < mPrefetchCount ) {
+            final int pi = mPrefetchPanels[mPrefetchPosition];
+            switch (mPrefetchStep) {
+                case PREFETCH_ATTACH:
+                    if ( null != mAdapter && mActivePanels.indexOfKey(pi) < 0
+                         && !mInflater.isPending(pi) ) {
+                        // measured and laid out by the following steps
+                        addPanel(pi, true);
+                    }
+                    break;
 
-	private void updateCurrent(int index) {
-		mCurrent = index;
-		for ( Listener l : mListeners ) {
-			l.onPanelChanged(mCurrent);
-		}
-	}
+                case PREFETCH_MEASURE:
+                    measurePanel(getPanelAt(pi));
+                    break;
 
-    private void setupOptions(AttributeSet as) {
-        // TODO: not read properly yet..
-        mWrapPermitted = as.getAttributeBooleanValue("velour", "permit_wrapping", mWrapPermitted);
-        mFlingVelocity = as.getAttributeIntValue("velour", "fling_velocity", mFlingVelocity);
-        mDefaultPanel = as.getAttributeIntValue("velour", "default_panel", mDefaultPanel);
-        mTouchFuzz = as.getAttributeIntValue("velour", "touch_fuzz", mTouchFuzz);
-    }
+                case PREFETCH_LAYOUT:
+                    layoutPanel(pi, getPanelAt(pi));
+                    if ( isTranslationScrolling() ) {
+                        translatePanel(pi, getPanelAt(pi));
+                    }
+                    break;
 
-    // Overrideable
-    protected int getDefaultPanel() {
-        return mDefaultPanel;
-    }
+                case PREFETCH_RENDER:
+                    if ( isPrefetchRender() && isMotionLayers() && null != getPanelAt(pi) ) {
+                        mLayersPromoted = true;
+                        promotePanel(getPanelAt(pi));
+                    }
+                    break;
+            }
 
-    protected int getTouchFuzz() {
-        return mTouchFuzz;
+            if ( PREFETCH_RENDER == mPrefetchStep ) {
+                mPrefetchStep = PREFETCH_ATTACH;
+                mPrefetchPosition++;
+            } else {
+                mPrefetchStep++;
+            }
+            rv = mPrefetchPosition < mPrefetchCount;
+        }
+        return rv;
     }
 
-    protected boolean isWrappingPermitted() {
-        return mWrapPermitted;
+    private void onDataSetChanged() {
+        for ( int i = mActivePanels.size() - 1; i >= 0; i-- ) {
+            recyclePanelAt(i, false);
+        }
+        mInflater.clear();
+
+        mFirstLayout = true;
+        resetEngine(mEngine.clamp(findCurrentById(mEngine.getCurrent())));
+        requestLayout();
+        invalidate();
     }
 
-    protected int getFlingVelocity() {
-        return mFlingVelocity;
+    // where the current item went, or pi if it cannot be followed
+    private int findCurrentById(int pi) {
+        int rv = pi;
+        if ( mCurrentIdValid && mAdapter.hasStableIds() ) {
+            final int cc = mAdapter.getCount();
+            for ( int i = 0; i < cc; i++ ) {
+                if ( mAdapter.getItemId(i) == mCurrentId ) {
+                    rv = i;
+                    break;
+                }
+            }
+        }
+        return rv;
     }
-    // end overrideable
 
-    private boolean isNextValid() {
-        return INVALID_PANEL != mNext;
+    // apply c, describing how the adapter's data has just changed, in
+    // place of notifyDataSetChanged. Panels that only moved keep their
+    // views and measurements, changed ones are bound again in place,
+    // and everything is settled in a single layout pass with the
+    // current panel still on the same item
+    public void applyChanges(PanelChanges c) {
+        if ( null != mAdapter ) {
+            final int cc = mAdapter.getCount();
+            final boolean[] changed = new boolean[cc];
+            final int[] map = c.mapPositions(cc, changed);
+
+            // panels that went, or whose view can no longer be used,
+            // leave from their old positions
+            for ( int i = mActivePanels.size() - 1; i >= 0; i-- ) {
+                final int pi = mActivePanels.keyAt(i);
+                final int np = pi < map.length ? map[pi] : -1;
+                if ( np < 0
+                     || (changed[np] && mAdapter.getItemViewType(np) != mActiveTypes.valueAt(i)) ) {
+                    recyclePanelAt(i, true);
+                }
+            }
+
+            final int n = mActivePanels.size();
+            final View[] views = new View[n];
+            final int[] keys = new int[n];
+            final int[] types = new int[n];
+            for ( int i = 0; i < n; i++ ) {
+                keys[i] = mActivePanels.keyAt(i);
+                views[i] = mActivePanels.valueAt(i);
+                types[i] = mActiveTypes.valueAt(i);
+            }
+            mActivePanels.clear();
+            mActiveTypes.clear();
+            for ( int i = 0; i < n; i++ ) {
+                final int np = map[keys[i]];
+                View v = views[i];
+                if ( changed[np] ) {
+                    v = rebindPanel(np, v, types[i]);
+                }
+                mActivePanels.put(np, v);
+                mActiveTypes.put(np, types[i]);
+            }
+
+            final int sn = mPanelStates.size();
+            final int[] states = new int[sn * 2];
+            for ( int i = 0; i < sn; i++ ) {
+                states[i * 2] = mPanelStates.keyAt(i);
+                states[i * 2 + 1] = mPanelStates.valueAt(i);
+            }
+            mPanelStates.clear();
+            for ( int i = 0; i < sn; i++ ) {
+                final int pi = states[i * 2];
+                if ( pi < map.length && map[pi] >= 0 ) {
+                    mPanelStates.put(map[pi], states[i * 2 + 1]);
+                }
+            }
+
+            // the panels being built are for positions that may have
+            // moved; they are asked for again
+            mInflater.clear();
+            mSnapshots.clear();
+
+            final int pi = mEngine.getCurrent();
+            final int np = mEngine.clamp(followPanel(pi, map));
+            if ( 0 == cc || PagingEngine.WRAP_NONE != mEngine.getWrap() || mEngine.isNextWrapped() ) {
+                // nothing to stay on, or an end is in view that may no
+                // longer be the end
+                mFirstLayout = true;
+                resetEngine(np);
+            } else {
+                final int next = mEngine.getNext();
+                final int nn = next >= 0 && next < map.length ? map[next] : INVALID_PANEL;
+                // the current item moved, or went and np is a neighbour
+                final boolean moved = np != pi || pi >= map.length || map[pi] != np;
+                if ( null != mRecording ) {
+                    final GestureRecording.Event e = mRecording.addNavigation(
+                        GestureRecording.NAVIGATE_SHIFT, mClock.now(), np, cc);
+                    e.next = nn;
+                    e.changed = moved;
+                }
+                mEngine.shift(np, nn, moved);
+            }
+            requestLayout();
+            invalidate();
+        }
     }
 
-    private void scrollToDefault() {
-        if ( mFirstLayout ) {
-            scrollTo(mCurrent * getMeasuredWidth(), 0);
-            mFirstLayout = false;
+    // the new position of old panel pi, or of its nearest survivor
+    private int followPanel(int pi, int[] map) {
+        int rv = 0;
+        boolean found = false;
+        for ( int d = 0; !found && d < map.length; d++ ) {
+            if ( pi - d >= 0 && pi - d < map.length && map[pi - d] >= 0 ) {
+                rv = map[pi - d];
+                found = true;
+            } else if ( pi + d < map.length && map[pi + d] >= 0 ) {
+                rv = map[pi + d];
+                found = true;
+            }
         }
+        return found ? rv : findCurrentById(pi);
     }
 
-    private void changeCache(boolean enabled) {
-        int c = getChildCount();
-        for ( int i = 0; i < c; i++ ) {
-            View v = getChildAt(i);
-            v.setDrawingCacheEnabled(enabled);
-            if ( v instanceof ViewGroup ) {
-                ((ViewGroup) v).setAlwaysDrawnWithCacheEnabled(enabled);
+    // an unchanged view needs no new measurement, so only changed
+    // panels are bound again
+    private View rebindPanel(int pi, View v, int type) {
+        final View rv = mAdapter.getView(pi, v, this);
+        mSnapshots.remove(v);
+        if ( rv != v ) {
+            removeViewInLayout(v);
+            if ( mLayersPromoted ) {
+                demotePanel(v);
+                mPromoted.remove(v);
             }
+            mRecycler.addScrapView(v, type);
+            ViewGroup.LayoutParams lp = rv.getLayoutParams();
+            if ( null == lp ) {
+                lp = generateDefaultLayoutParams();
+            }
+            addViewInLayout(rv, -1, lp, true);
+        }
+        return rv;
+    }
+
+    private void scrollToDefault() {
+        if ( mFirstLayout && getPanelCount() > 0 ) {
+            recordNavigation(GestureRecording.NAVIGATE_HOME, mEngine.getCurrent());
+            mEngine.scrollToCurrent();
+            mFirstLayout = false;
         }
     }
 
-    private void enableChildrenCache() {
-        changeCache(true);
+    // snapshots are taken lazily, only for the panels that are drawn
+    // from a bitmap, and are redrawn once per gesture
+    private void invalidateSnapshots() {
+        mSnapshots.invalidateAll();
     }
 
-    private void clearChildrenCache() {
-        changeCache(false);
+    private void updateSnapshotBudget(int w, int h) {
+        final int kb = getSnapshotCacheKb();
+        mSnapshots.setMaxBytes(kb > 0 ? kb * 1024 : w * h * 4 * 3);
     }
 
     private abstract class DrawingState {
@@ -166,7 +1351,7 @@ public class Panels extends ViewGroup {
         }
 
         private void drawCurrent(Canvas can) {
-            drawChild(can, getChildAt(mCurrent), getDrawingTime());
+            drawPanel(can, mEngine.getCurrent());
         }
 
         private boolean drawFling(Canvas can) {
@@ -179,29 +1364,59 @@ public class Panels extends ViewGroup {
         }
 
         private void drawFullScroll(Canvas can) {
-            drawAll(can);
+            drawVisible(can);
             drawPotentialWrappedViewToCache(can);
         }
 
-        private void drawAll(Canvas can) {
-            for (int i = 0; i < getChildCount(); i++) {
-                drawChild(can, getChildAt(i), getDrawingTime());
+        // at most two panels overlap the scrolled window, whatever the
+        // number of panels
+        private void drawVisible(Canvas can) {
+            final int w = getWidth();
+            if ( w > 0 ) {
+                final int sx = getScrollX();
+                int first = sx / w;
+                if ( sx < 0 && sx % w != 0 ) {
+                    first--;
+                }
+                drawPanelIfVisible(can, first, sx, w);
+                drawPanelIfVisible(can, first + 1, sx, w);
+            }
+        }
+
+        private void drawPanelIfVisible(Canvas can, int pi, int sx, int w) {
+            if ( pi >= 0 && pi < getPanelCount() ) {
+                final View v = getPanelAt(pi);
+                if ( null != v && v.getRight() > sx && v.getLeft() < sx + w ) {
+                    drawPanelView(can, v);
+                }
             }
         }
 
+        // the current and next panels are all that can be seen. A wrap
+        // that comes from the scroll position rather than the target
+        // puts the real wrapped panel in view as well, and a fling over
+        // several panels shows the ones in between
         private boolean isFling() {
-            return (mNext >= 0
-                    && mNext < getChildCount()
-                    && (Math.abs(mCurrent - mNext) == 1 || inMotion()));
+            final int next = mEngine.getNext();
+            return (next >= 0
+                    && next < getPanelCount()
+                    && getWidth() > 0
+                    && (PagingEngine.WRAP_NONE == mEngine.getWrap() || mEngine.isNextWrapped())
+                    && isCurrentOrNext(mEngine.getScrolledPanel())
+                    && (INVALID_PANEL == mEngine.getScrolledNext()
+                        || isCurrentOrNext(mEngine.getScrolledNext())));
+        }
+
+        private boolean isCurrentOrNext(int pi) {
+            return pi == mEngine.getCurrent() || pi == mEngine.getNext();
         }
 
         private boolean onlyDrawCurrent() {
-            return (mState.shouldDrawCurrentChild() && mNext == INVALID_PANEL);
+            return (!mEngine.isInMotion() && !mEngine.isNextValid());
         }
 
         abstract protected void drawPotentialWrappedViewToCache(Canvas can);
         abstract protected void drawNext(Canvas can);
-        abstract protected boolean inMotion();
 
         public void draw(Canvas can) {
             if ( !drawExclusiveCurrent(can) ) {
@@ -220,12 +1435,7 @@ public class Panels extends ViewGroup {
 
         @Override
         protected void drawNext(Canvas can) {
-            drawChild(can, getChildAt(mNext), getDrawingTime());
-        }
-
-        @Override
-        protected boolean inMotion() {
-            return false;
+            drawPanel(can, mEngine.getNext());
         }
     }
 
@@ -234,28 +1444,52 @@ public class Panels extends ViewGroup {
         protected abstract int getWidthGivenNext(View nv);
 
         private void drawToCache(Canvas can, final View nv) {
-            can.drawBitmap(nv.getDrawingCache(), getWidthGivenNext(nv), nv.getTop(), new Paint());
+            final PanelsMetrics m = mMetrics;
+            final int misses = mSnapshots.getMissCount();
+            final long start = null == m ? 0 : m.begin(PanelsMetrics.SECTION_SNAPSHOT);
+            final Bitmap b = mSnapshots.get(nv);
+            if ( null != m ) {
+                m.endSnapshot(start, mSnapshots.getMissCount() != misses);
+            }
+            if ( null != b ) {
+                can.drawBitmap(b, getWidthGivenNext(nv), nv.getTop(), mSnapshotPaint);
+            }
         }
 
-        @Override
-        protected void drawPotentialWrappedViewToCache(Canvas can) {
-            drawToCache(can, getWrappingNext());
+        // draw the live panel at its wrapped position by shifting the
+        // canvas rather than reading back a bitmap
+        private void drawTranslated(Canvas can, final View nv) {
+            final int sc = can.save();
+            can.translate(getWidthGivenNext(nv) - nv.getLeft(), 0);
+            drawPanelView(can, nv);
+            can.restoreToCount(sc);
+        }
+
+        private void drawWrapped(Canvas can, final View nv) {
+            if ( null != nv ) {
+                if ( isWrapSnapshotted() && !mLayersPromoted ) {
+                    drawToCache(can, nv);
+                } else {
+                    drawTranslated(can, nv);
+                }
+            }
         }
 
         @Override
-        protected void drawNext(Canvas can) {
-            drawToCache(can, getChildAt(mNext));
+        protected void drawPotentialWrappedViewToCache(Canvas can) {
+            drawWrapped(can, getWrappingNext());
         }
 
+        // only reached for a wrapped next panel
         @Override
-        protected boolean inMotion() {
-            return true;
+        protected void drawNext(Canvas can) {
+            drawWrapped(can, getPanelAt(mEngine.getNext()));
         }
     }
 
     private class LeftMotionDrawingState extends InMotionDrawingState {
         protected View getWrappingNext() {
-            return getChildAt(getChildCount() - 1);
+            return getPanelAt(getPanelCount() - 1);
         }
 
         protected int getWidthGivenNext(View nv) {
@@ -265,11 +1499,11 @@ public class Panels extends ViewGroup {
 
     private class RightMotionDrawingState extends InMotionDrawingState {
         protected View getWrappingNext() {
-            return getChildAt(0);
+            return getPanelAt(0);
         }
 
         protected int getWidthGivenNext(View nv) {
-            return getWidth() * getChildCount();
+            return getWidth() * getPanelCount();
         }
     }
 
@@ -277,310 +1511,423 @@ public class Panels extends ViewGroup {
     private final LeftMotionDrawingState mLeftDrawState = new LeftMotionDrawingState();
     private final RightMotionDrawingState mRightDrawState = new RightMotionDrawingState();
 
-    private DrawingState mDrawState = mNeutralDrawState;
+    private DrawingState getDrawState() {
+        DrawingState rv = mNeutralDrawState;
+        switch (mEngine.getWrap()) {
+            case PagingEngine.WRAP_LEFT:
+                rv = mLeftDrawState;
+                break;
 
-    private void layoutAllChildren() {
-        final int c = getChildCount();
-        int left = 0;
-        for ( int i = 0; i < c; i++ ) {
-            final View ch = getChildAt(i);
-            if ( View.GONE != ch.getVisibility() ) {
-                final int w = ch.getMeasuredWidth();
-                ch.layout(left, 0, left + w, ch.getMeasuredHeight());
-                left += w;
-            }
+            case PagingEngine.WRAP_RIGHT:
+                rv = mRightDrawState;
+                break;
         }
+        return rv;
     }
 
-    public int getCurrentPanel() {
-        return mCurrent;
-    }
-
-    private void scrollByCurrentPosition() {
-        final int w = getWidth();
-        final int sx = getScrollX();
-        final int sw = sx + (w / 2);
-        final int cc = getChildCount();
-        int pi = - 1;
-
-        if (sw > w * cc) {
-            pi = cc;
-        } else if ( sw > 0 ){
-            pi = (sx + (w / 2)) / w;
+    private void drawPanel(Canvas can, int pi) {
+        final View v = getPanelAt(pi);
+        if ( null != v ) {
+            drawPanelView(can, v);
         }
-        scrollByPanel(pi);
     }
 
-    private void scrollByPanel(int pi) {
-        if ( mScroller.isFinished() ) {
-            scrollByPanelFinishScrolling(pi);
-        }
+    private void drawPanelView(Canvas can, View v) {
+        drawChild(can, v, getDrawingTime());
+        mCounters.mDraws++;
     }
 
-    private int wrapIndexLeft() {
-        int rv = 0;
-        if ( isWrappingPermitted() ) {
-            rv = getChildCount();
-            mDrawState = mLeftDrawState;
-        }
-        return rv;
+    public int getCurrentPanel() {
+        return mEngine.getCurrent();
     }
 
-    private int wrapIndexRight() {
-        int rv = getChildCount();
-        if ( isWrappingPermitted() ) {
-            rv = 0;
-            mDrawState = mRightDrawState;
+    // move to pi, animating unless animate is false or pi is more than
+    // a few panels away. Calls made in a burst are merged into one
+    // scroll toward the last of them, a call made while a scroll is
+    // settling redirects it, and onPanelChanged fires once, for the
+    // panel finally settled on
+    public void setCurrentPanel(int pi, boolean animate) {
+        if ( mFirstLayout ) {
+            recordNavigation(GestureRecording.NAVIGATE_CURRENT, mEngine.clamp(pi));
+            mEngine.setCurrent(mEngine.clamp(pi));
+        } else {
+            recordNavigation(animate ? GestureRecording.NAVIGATE_REQUEST
+                             : GestureRecording.NAVIGATE_REQUEST_JUMP, pi);
+            mEngine.requestPanel(pi, animate);
         }
-        return rv;
     }
 
-    private int changePanel(int pi) {
-        final int cc = getChildCount() - 1;
-        final int requestedI = pi;
-
-        mDrawState = mNeutralDrawState;
-
-        if (pi < 0) {
-            pi = wrapIndexLeft();
-        } else if (pi > cc) {
-            pi = wrapIndexRight();
-        }
-
-        updateNext(pi);
-        return requestedI * getWidth();
+    public void scrollToPanel(int pi) {
+        setCurrentPanel(pi, true);
     }
 
-    private void scrollByPanelFinishScrolling(int pi) {
-        enableChildrenCache();
-
-        final int nx = changePanel(pi);
-
-        clearFocus(pi);
-        startScroll(nx);
-        invalidate();
+    // also the way a replay moves as focus did
+    void scrollByPanel(int pi) {
+        recordNavigation(GestureRecording.NAVIGATE_SCROLL, pi);
+        mEngine.scrollToPanel(pi);
     }
 
     private void clearFocus(int pi) {
-        final boolean changing = pi != mCurrent;
+        final int cpi = mEngine.getCurrent();
+        final boolean changing = pi != cpi;
         View fc = getFocusedChild();
         if (fc != null
                 && changing
-                && fc == getChildAt(mCurrent)) {
+                && fc == getPanelAt(cpi)) {
             fc.clearFocus();
         }
     }
 
-    private void startScroll(final int nx) {
-        final int delta = nx - getScrollX();
-        mScroller.startScroll(getScrollX(), 0, delta, 0, Math.abs(delta) * 2);
+    // the tracker is kept for the life of the view and cleared
+    // between gestures, so touch handling never allocates
+    private void trackMotion(MotionEvent e) {
+        if (mTracker == null) {
+            mTracker = VelocityTracker.obtain();
+        }
+        if (e.getAction() == MotionEvent.ACTION_DOWN) {
+            mTracker.clear();
+        }
+        mTracker.addMovement(e);
     }
 
-    private class State {
-        protected VelocityTracker mTracker;
-
-        private boolean hadLateralMotion(float x) {
-            return ((int) Math.abs(x - mLastX) > getTouchFuzz());
+    // built panels arrive outside of layout, so they are measured and
+    // placed here rather than by a full pass
+    private class InflaterHost implements PanelInflater.Host {
+        public void attachPanel(int pi, View v, int type) {
+            ((AsyncPanelsAdapter) mAdapter).bindView(pi, v);
+            placePanel(pi, v, type);
         }
 
-        public void trackMotion(MotionEvent e) {
-            if (mTracker == null) {
-                mTracker = VelocityTracker.obtain();
+        // built again the synchronous way, where whatever went wrong
+        // on the worker is thrown to the caller
+        public void panelFailed(int pi, int type) {
+            if ( pi < getPanelCount() && isPanelWanted(pi) ) {
+                final View v = mAdapter.getView(pi, null, Panels.this);
+                if ( null == v ) {
+                    throw new IllegalStateException("no view for panel " + pi);
+                }
+                placePanel(pi, v, type);
             }
-            mTracker.addMovement(e);
         }
 
-        public boolean shouldDrawCurrentChild() {
-            return true;
+        private void placePanel(int pi, View v, int type) {
+            Panels.this.attachPanel(pi, v, type, true);
+            if ( mHaveSpecs && getWidth() > 0 ) {
+                measurePanel(v);
+                layoutPanel(pi, v);
+                if ( isTranslationScrolling() ) {
+                    translatePanel(pi, v);
+                }
+            } else {
+                requestLayout();
+            }
         }
 
-        public boolean intercepted() {
-            return false;
+        public void scrapPanel(View v, int type) {
+            mRecycler.addScrapView(v, type);
         }
 
-        public boolean interceptWithoutHandling(int action) {
-            return false;
+        public void onPanelsAttached() {
+            updatePanelVisibility();
+            invalidate();
         }
+    }
 
-        public State onActionDown(MotionEvent e) {
-            if (!mScroller.isFinished()) {
-                mScroller.abortAnimation();
-            }
+    // Panels' side of the engine: geometry and options in, scrolling
+    // and panel events out
+    private class EngineHost implements PagingEngine.Host {
+        public int getPanelCount() {
+            return Panels.this.getPanelCount();
+        }
 
-            mLastX = e.getX();
-            return this;
+        public int getPanelWidth() {
+            return getWidth();
         }
 
-        public State onActionUp(MotionEvent e) {
-            if (mTracker != null) {
-                mTracker.recycle();
-                mTracker = null;
-            }
+        public boolean isWrappingPermitted() {
+            return Panels.this.isWrappingPermitted();
+        }
 
-            return mNeutralState;
+        public int getTouchFuzz() {
+            return Panels.this.getTouchFuzz();
         }
 
-        public State onActionMove(MotionEvent e) {
-            return mMotionState;
+        public int getTouchSlop() {
+            return mTouchSlop;
         }
 
-        public State onActionCancel(MotionEvent e) {
-            return mNeutralState;
+        public int getFlingVelocity() {
+            return Panels.this.getFlingVelocity();
         }
 
-        private State onInterceptActionDown(final float x, final float y) {
-            mLastX = x;
+        public boolean isFlingPhysics() {
+            return Panels.this.isFlingPhysics();
+        }
 
-            return mScroller.isFinished() ? mNeutralState : mMotionState;
+        public void scrollTo(int x) {
+            panelScrollTo(x);
+            followScroll();
+            if ( null != mMetrics && mEngine.isInMotion() ) {
+                mMetrics.scrolled();
+            }
+            updatePanelVisibility();
         }
 
-        private State onInterceptActionMove(final float x, final float y) {
-            State rv = this;
+        public void invalidate() {
+            Panels.this.invalidate();
+        }
 
-            if ( hadLateralMotion(x) ) {
-                rv = mMotionState;
-                enableChildrenCache();
-            }
+        public void onPanelChanged(int pi) {
+            notifyPanelChanged(pi);
+        }
 
-            return rv;
+        public void onNextChanged(int pi) {
+            refreshWindow();
         }
-    };
 
-    private class InMotion extends State {
-        @Override
-        public boolean interceptWithoutHandling(int action) {
-            return (action == MotionEvent.ACTION_MOVE);
+        public void onPanelPending(int pi) {
+            notifyPanelPending(pi);
         }
 
-        @Override
-        public boolean intercepted() {
-            return true;
+        public void onGestureStarted() {
+            invalidateSnapshots();
+            cancelPrefetch();
         }
 
-        @Override
-        public boolean shouldDrawCurrentChild() {
-            return false;
+        public void onMotionStarted() {
+            if ( isIdlePrefetch() ) {
+                // whatever idle time did not get to is needed now
+                fillWindow(getOffscreenPanels());
+            }
+            promoteMotionPanels();
+            notifyPanelMotion(mEngine.getCurrent());
         }
 
-        @Override
-        public State onActionUp(MotionEvent e) {
-            int vx = (int) mTracker.getXVelocity();
-            final int fv = getFlingVelocity();
-
-            if (vx > fv && mCurrent > 0) {
-                scrollByPanel(mCurrent - 1);
-            } else if (vx < -fv && mCurrent < getChildCount() - 1) {
-                scrollByPanel(mCurrent + 1);
-            } else {
-                scrollByCurrentPosition();
+        // a scrolling parent, such as the list this may be a row of,
+        // must not take over a drag that is plainly across; one that is
+        // mostly down is left for it to scroll
+        public void onDragClaimed() {
+            final ViewParent p = getParent();
+            if ( null != p ) {
+                p.requestDisallowInterceptTouchEvent(true);
             }
+        }
 
-            return super.onActionUp(e);
+        public void onScrollStarted(int pi) {
+            if ( null != mMetrics ) {
+                mMetrics.settleStarted();
+            }
+            invalidateSnapshots();
+            promoteMotionPanels();
+            clearFocus(pi);
         }
 
-        @Override
-        public State onActionMove(MotionEvent e) {
-            final float x = e.getX();
-            final boolean wp = isWrappingPermitted();
-            final int sx = getScrollX();
-            int dx = (int) (mLastX - x);
-
-            mLastX = x;
-
-            if ( dx < 0 ) {
-                if (sx <= 0 ) {
-                    if ( wp ) {
-                        mDrawState = mLeftDrawState;
-                    } else {
-                        dx = 0;
-                    }
-                }
-                scrollBy(dx, 0);
-            } else if ( dx > 0 ) {
-                int cr = getChildAt(getChildCount() - 1).getRight();
-                int space = cr - sx - getWidth();
-                if (space <= 0 ) {
-                    if ( wp ) {
-                        mDrawState = mRightDrawState;
-                        enableChildrenCache();
-                        space += getWidth() * 2;
-                    } else {
-                        space = 0;
-                    }
-                }
-                if ( space > 0 ) {
-                    scrollBy(Math.min(space, dx), 0);
-                }
+        public void onScrollSettled() {
+            demoteMotionPanels();
+            if ( null != mMetrics ) {
+                mMetrics.settled();
             }
+            updatePanelVisibility();
+        }
+    }
 
-            return super.onActionMove(e);
+    private VelocityTracker mTracker;
+    private int mMaximumVelocity;
+    private int mTouchSlop;
+
+    private int mLastPending = INVALID_PANEL;
+    // the panels in view when the window last followed the scroll
+    private int mScrolledFirst = INVALID_PANEL;
+    private int mScrolledSecond = INVALID_PANEL;
+
+    private int[] mPrefetchPanels = new int[2];
+    private int mPrefetchCount;
+    private int mPrefetchPosition;
+    private int mPrefetchStep;
+    private int mPrefetchDirection = 1;
+    private int mPrefetchFrom;
+    private boolean mPrefetchQueued;
+    private final MessageQueue.IdleHandler mPrefetcher = new MessageQueue.IdleHandler() {
+        public boolean queueIdle() {
+            final boolean more = prefetchSlice();
+            if ( more ) {
+                // the queue only calls idle handlers as it goes idle, so
+                // wake it for the next slice
+                post(mPrefetchWake);
+            } else {
+                mPrefetchQueued = false;
+            }
+            return more;
+        }
+    };
+    private final Runnable mPrefetchWake = new Runnable() {
+        public void run() {
+        }
+    };
+    private boolean mScrolledPosted;
+    private final Runnable mDispatchScrolled = new Runnable() {
+        public void run() {
+            mScrolledPosted = false;
+            notifyPanelScrolled();
         }
     };
-
-    State mNeutralState = new State();
-    State mMotionState = new InMotion();
-
-    State mState = mNeutralState;
-
-    // shared b/w State instances - ugly
-    private float mLastX;
 
 	private ArrayList<Listener> mListeners = new ArrayList<Listener>();
 
     // overrides
     @Override
     protected void dispatchDraw(Canvas can) {
-        if ( getChildCount() > 0 ) {
-            mDrawState.draw(can);
+        final PanelsMetrics m = mMetrics;
+        final long start = null == m ? 0 : m.begin(PanelsMetrics.SECTION_DRAW);
+        if ( getPanelCount() > 0 ) {
+            drawPlaceholders(can);
+            if ( isTranslationScrolling() ) {
+                drawTranslatedWindow(can);
+            } else {
+                getDrawState().draw(can);
+            }
+        }
+        if ( null != m ) {
+            m.endDraw(start, mEngine.isInMotion() || !mEngine.isScrollFinished());
+        }
+    }
+
+    // the placeholder stands in for the panels at the scroll position
+    // that are still being built
+    private void drawPlaceholders(Canvas can) {
+        final int w = getWidth();
+        if ( null != mPlaceholder && w > 0 && mInflater.getPendingCount() > 0 ) {
+            final int first = mEngine.getScrolledPanel();
+            drawPlaceholder(can, first, w);
+            if ( mEngine.normalize(first + 1) != first ) {
+                drawPlaceholder(can, mEngine.normalize(first + 1), w);
+            }
+        }
+    }
+
+    private void drawPlaceholder(Canvas can, int pi, int w) {
+        if ( pi >= 0 && mInflater.isPending(pi) ) {
+            // scrolling moves the canvas; translation leaves it alone
+            int left = mEngine.nearestCopy(pi) * w;
+            if ( isTranslationScrolling() ) {
+                left -= mEngine.getScrollX();
+            }
+            mPlaceholder.setBounds(left, 0, left + w, getHeight());
+            mPlaceholder.draw(can);
+        }
+    }
+
+    // translated panels carry their own position, wrapping included,
+    // so only the two panels at the scroll position can be visible;
+    // panels outside the window hold stale translations
+    private void drawTranslatedWindow(Canvas can) {
+        if ( getWidth() > 0 ) {
+            final int first = mEngine.getScrolledPanel();
+            final int second = mEngine.normalize(first + 1);
+            drawTranslatedIfVisible(can, first);
+            if ( second != first ) {
+                drawTranslatedIfVisible(can, second);
+            }
+        }
+    }
+
+    private void drawTranslatedIfVisible(Canvas can, int pi) {
+        if ( pi >= 0 && pi < getPanelCount() && isPanelWanted(pi) ) {
+            final View v = getPanelAt(pi);
+            if ( null != v ) {
+                final float x = v.getLeft() + v.getTranslationX();
+                if ( x < getWidth() && x + v.getWidth() > 0 ) {
+                    drawPanelView(can, v);
+                }
+            }
         }
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        layoutAllChildren();
+        visitWindow(WINDOW_LAYOUT, true);
         scrollToDefault();
+        if ( isTranslationScrolling() ) {
+            applyTranslations();
+        }
+        updatePanelVisibility();
+        if ( isIdlePrefetch() && !mPrefetchQueued ) {
+            schedulePrefetch();
+        }
     }
 
     @Override
     public void computeScroll() {
-        final int sx = getScrollX();
-        final int sy = getScrollY();
-        if ( mScroller.computeScrollOffset() ) {
-            int cx = mScroller.getCurrX();
-            int cy = mScroller.getCurrY();
-
-            if ( cx != sx || cy != sy ){
-                scrollTo(cx, cy);
-            } else {
-                invalidate();
-            }
-        } else if ( isNextValid() ) {
-            updateCurrent(Math.max(0, Math.min(mNext, getChildCount() - 1)));
-            updateNext(INVALID_PANEL);
-
-            mDrawState = mNeutralDrawState;
-            clearChildrenCache();
-
-            mCurrentScrollX = mCurrent * getWidth();
-            if ( sx != mCurrentScrollX ) {
-                scrollTo(mCurrentScrollX, sy);
-            }
+        final PanelsMetrics m = mMetrics;
+        // every frame goes in: one that settles nothing may still apply
+        // a pending request
+        if ( null != mRecording ) {
+            mRecording.addFrame(mClock.now());
+        }
+        if ( null == m ) {
+            mEngine.computeScroll();
+        } else {
+            m.begin(PanelsMetrics.SECTION_SCROLL);
+            mEngine.computeScroll();
+            m.end();
         }
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        final int cc = getChildCount();
-        for (int i = 0; i < cc; i++) {
-            getChildAt(i).measure(widthMeasureSpec, heightMeasureSpec);
+        mWidthSpec = widthMeasureSpec;
+        mHeightSpec = heightMeasureSpec;
+        mHaveSpecs = true;
+
+        populate(true, isIdlePrefetch() ? 0 : getOffscreenPanels());
+        visitWindow(WINDOW_MEASURE, true);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet as) {
+        return new LayoutParams(getContext(), as);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int ow, int oh) {
+        super.onSizeChanged(w, h, ow, oh);
+        updateSnapshotBudget(w, h);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mSnapshots.clear();
+        demoteMotionPanels();
+        removeCallbacks(mDispatchScrolled);
+        mScrolledPosted = false;
+        cancelPrefetch();
+        if (mTracker != null) {
+            mTracker.recycle();
+            mTracker = null;
         }
     }
 
     @Override
     public boolean requestChildRectangleOnScreen(View ch, Rect r, boolean im) {
-        int pi = indexOfChild(ch);
-        if (pi != mCurrent || !mScroller.isFinished()) {
+        int pi = indexOfPanel(ch);
+        if (pi != mEngine.getCurrent() || !mEngine.isScrollFinished()) {
             scrollByPanel(pi);
             return true;
         }
@@ -589,7 +1936,7 @@ public class Panels extends ViewGroup {
 
     @Override
     protected boolean onRequestFocusInDescendants(int d, Rect pfr) {
-        View v = getChildAt(isNextValid() ? mNext : mCurrent);
+        View v = getPanelAt(mEngine.isNextValid() ? mEngine.getNext() : mEngine.getCurrent());
         if ( null != v ) {
             v.requestFocus(d, pfr);
         }
@@ -609,7 +1956,7 @@ public class Panels extends ViewGroup {
                 break;
 
             case View.FOCUS_RIGHT:
-                handled = pi < getChildCount() - 1;
+                handled = pi < getPanelCount() - 1;
                 pi = cpi + 1;
         }
 
@@ -623,34 +1970,36 @@ public class Panels extends ViewGroup {
         return handled;
     }
 
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        final PanelsMetrics m = mMetrics;
+        boolean rv;
+
+        if ( MotionEvent.ACTION_DOWN == ev.getAction() ) {
+            mCounters.mGestures++;
+            if ( null != m ) {
+                m.touchDown();
+            }
+        }
+
+        if ( null == m ) {
+            rv = super.dispatchTouchEvent(ev);
+        } else {
+            m.begin(PanelsMetrics.SECTION_TOUCH);
+            rv = super.dispatchTouchEvent(ev);
+            m.end();
+        }
+        return rv;
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         boolean intercept = false;
-        if ( getChildCount() > 0 ) {
-            final int action = ev.getAction();
-
-            intercept = mState.interceptWithoutHandling(action);
-            if ( !intercept ) {
-                final float x = ev.getX();
-                final float y = ev.getY();
-
-                switch (action) {
-                    case MotionEvent.ACTION_MOVE:
-                        mState = mState.onInterceptActionMove(x, y);
-                        break;
-
-                    case MotionEvent.ACTION_DOWN:
-                        mState = mState.onInterceptActionDown(x, y);
-                        break;
-
-                    case MotionEvent.ACTION_CANCEL:
-                    case MotionEvent.ACTION_UP:
-                        mState = mNeutralState;
-                        break;
-                }
-
-                intercept = mState.intercepted();
+        if ( getPanelCount() > 0 ) {
+            if ( null != mRecording ) {
+                recordEvent(GestureRecording.KIND_INTERCEPT, ev, 0);
             }
+            intercept = mEngine.onInterceptTouchEvent(ev.getAction(), ev.getX(), ev.getY());
         }
 
         return intercept;
@@ -660,25 +2009,29 @@ public class Panels extends ViewGroup {
     public boolean onTouchEvent(MotionEvent e) {
         boolean rv = false;
 
-        if ( getChildCount() > 0 ) {
-            mState.trackMotion(e);
-
-            switch (e.getAction()) {
-                case MotionEvent.ACTION_DOWN:
-                    mState = mState.onActionDown(e);
-                    break;
-
-                case MotionEvent.ACTION_MOVE:
-                    mState = mState.onActionMove(e);
-                    break;
+        if ( getPanelCount() > 0 ) {
+            final int action = e.getAction();
+            trackMotion(e);
 
-                case MotionEvent.ACTION_UP:
-                    mState = mState.onActionUp(e);
-                    break;
+            float vx = 0;
+            if ( MotionEvent.ACTION_UP == action ) {
+                mTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+                vx = mTracker.getXVelocity();
+            }
+            if ( null != mRecording ) {
+                recordEvent(GestureRecording.KIND_TOUCH, e, vx);
+            }
+            if ( MotionEvent.ACTION_MOVE == action ) {
+                final int hs = e.getHistorySize();
+                for ( int h = 0; h < hs; h++ ) {
+                    mEngine.onTouchEvent(action, e.getHistoricalX(h), e.getHistoricalY(h), 0);
+                }
+            }
+            mEngine.onTouchEvent(action, e.getX(), e.getY(), vx);
 
-                case MotionEvent.ACTION_CANCEL:
-                    mState = mState.onActionCancel(e);
-                    break;
+            if ( MotionEvent.ACTION_UP == action
+                 || MotionEvent.ACTION_CANCEL == action ) {
+                mTracker.clear();
             }
             rv = true;
         }
@@ -692,15 +2045,45 @@ public class Panels extends ViewGroup {
     @Override
 	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
 		super.onScrollChanged(l, t, oldl, oldt);
+		schedulePanelScrolled();
+	}
+
+	private void notifyPanelPending(int pi) {
+		final boolean changed = pi != mLastPending;
+		final int c = mListeners.size();
+
+		mLastPending = pi;
+		for ( int i = 0; i < c; i++ ) {
+			final Listener li = mListeners.get(i);
+			if ( changed || !li.onlyPendingChanges() ) {
+				li.onPanelPending(pi);
+				mCounters.mCallbacks++;
+			}
+		}
+	}
+
+	private void schedulePanelScrolled() {
+		if ( !mScrolledPosted && mListeners.size() > 0 ) {
+			mScrolledPosted = true;
+			if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ) {
+				postOnAnimation(mDispatchScrolled);
+			} else {
+				post(mDispatchScrolled);
+			}
+		}
+	}
+
+	private void notifyPanelScrolled() {
 		final int w = getWidth();
-		if ( l < oldl && l % w < w / 2 && l > 0 ) {
-			for ( Listener li : mListeners ) {
-				li.onPanelPending(mCurrent - 1);
-			}			
-		} else if ( l > oldl && l % w > w / 2 && l < w * getChildCount() ) {
-			for ( Listener li : mListeners ) {
-				li.onPanelPending(mCurrent + 1);
-			}						
+		final int cc = getPanelCount();
+		if ( w > 0 && cc > 0 ) {
+			final int pi = mEngine.getScrolledPanel();
+			final float f = mEngine.getScrolledOffset();
+			final int c = mListeners.size();
+			for ( int i = 0; i < c; i++ ) {
+				mListeners.get(i).onPanelScrolled(pi, f);
+				mCounters.mCallbacks++;
+			}
 		}
 	}
 
@@ -0,0 +1,92 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * Supplies the panels shown by a Panels instance. Only the current
+  * panel and a few of its neighbours are requested at any time; views
+  * that move out of that range are handed back through convertView
+  * for reuse, in the same way as a ListView adapter.
+  *
+  */
+public abstract class PanelsAdapter {
+    public static final int IGNORE_ITEM_VIEW_TYPE = -1;
+
+    private final DataSetObservable mObservable = new DataSetObservable();
+
+    public abstract int getCount();
+
+    public abstract View getView(int position, View convertView, ViewGroup parent);
+
+    // views of the same type are interchangeable as convertView; return
+    // IGNORE_ITEM_VIEW_TYPE to keep a panel out of the recycler
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    public int getViewTypeCount() {
+        return 1;
+    }
+
+    // with stable ids Panels keeps showing the same item as the data
+    // changes, rather than the same position
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    public long getItemId(int position) {
+        return position;
+    }
+
+    // visibility of the panels this adapter supplied, in the same order
+    // as the Panels.Listener methods of the same names; panels can
+    // pause their work while they cannot be seen
+    public void onPanelWillAppear(int position, View panel) {
+    }
+
+    public void onPanelAppeared(int position, View panel) {
+    }
+
+    public void onPanelWillDisappear(int position, View panel) {
+    }
+
+    public void onPanelDisappeared(int position, View panel) {
+    }
+
+    // the panel is about to be recycled
+    public void onPanelLeftWindow(int position, View panel) {
+    }
+
+    public void registerDataSetObserver(DataSetObserver o) {
+        mObservable.registerObserver(o);
+    }
+
+    public void unregisterDataSetObserver(DataSetObserver o) {
+        mObservable.unregisterObserver(o);
+    }
+
+    public void notifyDataSetChanged() {
+        mObservable.notifyChanged();
+    }
+}
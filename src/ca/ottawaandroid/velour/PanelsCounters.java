@@ -0,0 +1,75 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+/**
+  *
+  * Running counts of the work Panels does on its children and its
+  * listeners, so that a change which adds passes to the measure,
+  * layout, draw or callback paths shows up. Reset before a scripted
+  * gesture, or divide by getGestureCount() over several.
+  *
+  */
+public class PanelsCounters {
+    int mMeasures;
+    int mLayouts;
+    int mDraws;
+    int mPromotions;
+    int mCallbacks;
+    int mGestures;
+
+    // child measure() calls made by Panels
+    public int getMeasureCount() {
+        return mMeasures;
+    }
+
+    // child layout() calls made by Panels
+    public int getLayoutCount() {
+        return mLayouts;
+    }
+
+    // child drawChild() calls made by Panels, live or translated
+    public int getDrawCount() {
+        return mDraws;
+    }
+
+    // panels given a hardware layer for a motion; snapshot renders are
+    // counted by the SnapshotCache as misses
+    public int getPromotionCount() {
+        return mPromotions;
+    }
+
+    // calls made to Panels.Listener methods
+    public int getCallbackCount() {
+        return mCallbacks;
+    }
+
+    // touch sequences started on Panels
+    public int getGestureCount() {
+        return mGestures;
+    }
+
+    public void reset() {
+        mMeasures = 0;
+        mLayouts = 0;
+        mDraws = 0;
+        mPromotions = 0;
+        mCallbacks = 0;
+        mGestures = 0;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+  *
+  * Optional timing for a Panels: how long each frame takes to draw,
+  * how long from a finger going down to the first scroll, how long a
+  * fling takes to settle, how many frames are dropped while the panels
+  * move, and how long snapshots take to build. While set on a Panels
+  * the same work is also marked as system trace sections (from
+  * JELLY_BEAN_MR2 on). A Panels without one pays a null check.
+  *
+  * Call everything here on the UI thread.
+  *
+  */
+public class PanelsMetrics {
+    public static final String SECTION_DRAW = "Panels.draw";
+    public static final String SECTION_SCROLL = "Panels.computeScroll";
+    public static final String SECTION_TOUCH = "Panels.touch";
+    public static final String SECTION_SNAPSHOT = "Panels.snapshot";
+
+    // times in microseconds, bucketed by powers of two: bucket 0 holds
+    // values under 1us, bucket i values from 2^(i-1) up to 2^i
+    public static class Histogram {
+        public static final int BUCKETS = 24;
+
+        private final int[] mBuckets = new int[BUCKETS];
+        private int mCount;
+        private long mTotal;
+        private long mMax;
+
+        void record(long us) {
+            int i = 0;
+            while ( i < BUCKETS - 1 && us >= (1L << i) ) {
+                i++;
+            }
+            mBuckets[i]++;
+            mCount++;
+            mTotal += us;
+            mMax = Math.max(mMax, us);
+        }
+
+        void reset() {
+            for ( int i = 0; i < BUCKETS; i++ ) {
+                mBuckets[i] = 0;
+            }
+            mCount = 0;
+            mTotal = 0;
+            mMax = 0;
+        }
+
+        Histogram copy() {
+            final Histogram rv = new Histogram();
+            System.arraycopy(mBuckets, 0, rv.mBuckets, 0, BUCKETS);
+            rv.mCount = mCount;
+            rv.mTotal = mTotal;
+            rv.mMax = mMax;
+            return rv;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public long getTotal() {
+            return mTotal;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        public long getMean() {
+            return mCount > 0 ? mTotal / mCount : 0;
+        }
+
+        public int getBucketCount(int i) {
+            return mBuckets[i];
+        }
+
+        // the exclusive upper bound of bucket i
+        public static long getBucketLimit(int i) {
+            return 1L << i;
+        }
+
+        // the upper bound of the bucket holding the p'th (0..1)
+        // percentile, never more than the largest value recorded
+        public long getPercentile(float p) {
+            final int want = (int) Math.ceil(p * mCount);
+            int seen = 0;
+            int i = 0;
+            while ( i < BUCKETS - 1 && (seen += mBuckets[i]) < want ) {
+                i++;
+            }
+            return Math.min(getBucketLimit(i), mMax);
+        }
+    }
+
+    // a copy of the metrics at one moment, to hand to telemetry
+    public static class Snapshot {
+        private final Histogram mDrawTimes;
+        private final Histogram mTouchToScrollTimes;
+        private final Histogram mSettleTimes;
+        private final Histogram mSnapshotBuildTimes;
+        private final int mFrames;
+        private final int mDroppedFrames;
+
+        private Snapshot(PanelsMetrics m) {
+            mDrawTimes = m.mDrawTimes.copy();
+            mTouchToScrollTimes = m.mTouchToScrollTimes.copy();
+            mSettleTimes = m.mSettleTimes.copy();
+            mSnapshotBuildTimes = m.mSnapshotBuildTimes.copy();
+            mFrames = m.mFrames;
+            mDroppedFrames = m.mDroppedFrames;
+        }
+
+        public Histogram getDrawTimes() {
+            return mDrawTimes;
+        }
+
+        public Histogram getTouchToScrollTimes() {
+            return mTouchToScrollTimes;
+        }
+
+        public Histogram getSettleTimes() {
+            return mSettleTimes;
+        }
+
+        public Histogram getSnapshotBuildTimes() {
+            return mSnapshotBuildTimes;
+        }
+
+        // frames drawn while the panels were moving
+        public int getFrameCount() {
+            return mFrames;
+        }
+
+        public int getDroppedFrameCount() {
+            return mDroppedFrames;
+        }
+    }
+
+    private final Histogram mDrawTimes = new Histogram();
+    private final Histogram mTouchToScrollTimes = new Histogram();
+    private final Histogram mSettleTimes = new Histogram();
+    private final Histogram mSnapshotBuildTimes = new Histogram();
+    private int mFrames;
+    private int mDroppedFrames;
+
+    private long mFrameIntervalNanos = 16666667;
+    private long mLastFrame;
+    private long mTouchDown;
+    private long mSettleStart;
+
+    // the display's refresh interval, against which dropped frames are
+    // counted; 60Hz unless set
+    public void setFrameIntervalNanos(long ns) {
+        mFrameIntervalNanos = ns;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        mDrawTimes.reset();
+        mTouchToScrollTimes.reset();
+        mSettleTimes.reset();
+        mSnapshotBuildTimes.reset();
+        mFrames = 0;
+        mDroppedFrames = 0;
+        mLastFrame = 0;
+        mTouchDown = 0;
+        mSettleStart = 0;
+    }
+
+    // the start time of a section, to be passed to the matching end
+    long begin(String section) {
+        if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 ) {
+            Trace.beginSection(section);
+        }
+        return System.nanoTime();
+    }
+
+    void end() {
+        if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 ) {
+            Trace.endSection();
+        }
+    }
+
+    void endDraw(long start, boolean moving) {
+        end();
+        final long now = System.nanoTime();
+        mDrawTimes.record((now - start) / 1000);
+        if ( !moving ) {
+            mLastFrame = 0;
+        } else {
+            if ( 0 != mLastFrame ) {
+                // a frame is late once it misses its vsync by half an
+                // interval or more
+                final long late = (now - mLastFrame) + mFrameIntervalNanos / 2;
+                mDroppedFrames += Math.max(0, (int) (late / mFrameIntervalNanos) - 1);
+            }
+            mLastFrame = now;
+            mFrames++;
+        }
+    }
+
+    void endSnapshot(long start, boolean built) {
+        end();
+        if ( built ) {
+            mSnapshotBuildTimes.record((System.nanoTime() - start) / 1000);
+        }
+    }
+
+    void touchDown() {
+        mTouchDown = System.nanoTime();
+    }
+
+    void scrolled() {
+        if ( 0 != mTouchDown ) {
+            mTouchToScrollTimes.record((System.nanoTime() - mTouchDown) / 1000);
+            mTouchDown = 0;
+        }
+    }
+
+    void settleStarted() {
+        if ( 0 == mSettleStart ) {
+            mSettleStart = System.nanoTime();
+        }
+    }
+
+    void settled() {
+        if ( 0 != mSettleStart ) {
+            mSettleTimes.record((System.nanoTime() - mSettleStart) / 1000);
+            mSettleStart = 0;
+        }
+        mLastFrame = 0;
+    }
+}
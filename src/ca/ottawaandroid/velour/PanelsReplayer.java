@@ -0,0 +1,155 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.view.MotionEvent;
+
+/**
+  *
+  * Plays a GestureRecording back into a real Panels, as touch events
+  * dispatched through its window and frames run by the window, so that
+  * the measure, layout, draw and adapter work of the recorded session
+  * runs again and can be counted. The Panels should be set up as the
+  * recorded one was, with the same panels, in the same place in its
+  * window; data changes during the session are the caller's to repeat.
+  *
+  */
+public class PanelsReplayer {
+    // the window the Panels is attached to
+    public interface Window {
+        // the time on the clock the Panels reads
+        long now();
+
+        // runs the frame due at time, delivering e to the window first
+        // if there is one
+        void frame(long time, MotionEvent e);
+    }
+
+    private final GestureRecording mRecording;
+    private final Panels mPanels;
+    private final Window mWindow;
+    // from the recording's clock to the window's
+    private final long mOffset;
+    private long mLastFrame;
+    private long mDownTime;
+    private GestureRecording.Event mLastIntercept;
+    private int mPosition;
+
+    public PanelsReplayer(GestureRecording r, Panels p, Window w) {
+        mRecording = r;
+        mPanels = p;
+        mWindow = w;
+        mOffset = w.now() - r.getStartTime();
+        mLastFrame = w.now();
+    }
+
+    public boolean hasNext() {
+        return mPosition < mRecording.getEventCount();
+    }
+
+    public void step() {
+        final GestureRecording.Event e = mRecording.getEvent(mPosition++);
+        switch (e.kind) {
+            case GestureRecording.KIND_INTERCEPT:
+                dispatch(e);
+                mLastIntercept = e;
+                break;
+
+            case GestureRecording.KIND_TOUCH:
+                // an event Panels both intercepted and handled was
+                // recorded twice but is dispatched once
+                if ( !isIntercepted(e) ) {
+                    dispatch(e);
+                }
+                mLastIntercept = null;
+                break;
+
+            case GestureRecording.KIND_FRAME:
+                // a frame that delivered an event has already drawn
+                if ( e.time + mOffset != mLastFrame ) {
+                    frame(e.time, null);
+                }
+                break;
+
+            case GestureRecording.KIND_NAVIGATE:
+                navigate(e);
+                break;
+        }
+    }
+
+    public void replay() {
+        while ( hasNext() ) {
+            step();
+        }
+    }
+
+    private boolean isIntercepted(GestureRecording.Event e) {
+        final GestureRecording.Event ie = mLastIntercept;
+        return null != ie && ie.action == e.action && ie.eventTime == e.eventTime
+            && ie.x == e.x && ie.y == e.y;
+    }
+
+    private void dispatch(GestureRecording.Event e) {
+        final long t = e.eventTime + mOffset;
+        if ( MotionEvent.ACTION_DOWN == e.action ) {
+            mDownTime = t;
+        }
+        final int hs = e.historyTimes.length;
+        final MotionEvent me;
+        if ( 0 == hs ) {
+            me = MotionEvent.obtain(mDownTime, t, e.action, e.x, e.y, 0);
+        } else {
+            me = MotionEvent.obtain(mDownTime, e.historyTimes[0] + mOffset, e.action,
+                                    e.historyX[0], e.historyY[0], 0);
+            for ( int h = 1; h < hs; h++ ) {
+                me.addBatch(e.historyTimes[h] + mOffset, e.historyX[h], e.historyY[h], 1, 1, 0);
+            }
+            me.addBatch(t, e.x, e.y, 1, 1, 0);
+        }
+        frame(e.time, me);
+        me.recycle();
+    }
+
+    private void frame(long time, MotionEvent e) {
+        mLastFrame = time + mOffset;
+        mWindow.frame(mLastFrame, e);
+    }
+
+    // only what the Panels was asked to do; the shifts, resets and
+    // scrolls home it did in response happen again by themselves
+    private void navigate(GestureRecording.Event e) {
+        switch (e.action) {
+            case GestureRecording.NAVIGATE_REQUEST:
+                mPanels.setCurrentPanel(e.panel, true);
+                break;
+
+            case GestureRecording.NAVIGATE_REQUEST_JUMP:
+            case GestureRecording.NAVIGATE_CURRENT:
+                mPanels.setCurrentPanel(e.panel, false);
+                break;
+
+            case GestureRecording.NAVIGATE_SCROLL:
+                mPanels.scrollByPanel(e.panel);
+                break;
+
+            case GestureRecording.NAVIGATE_RESET_PANELS:
+                mPanels.resetPanels(e.panel);
+                break;
+        }
+    }
+}
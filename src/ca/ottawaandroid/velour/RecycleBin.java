@@ -0,0 +1,91 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.ArrayList;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+/**
+  *
+  * Holds panel views that have scrolled out of range, grouped by
+  * view type, until an adapter can reuse them. Each Panels has its
+  * own; one can also be shared by many Panels, such as those in the
+  * rows of a list, as long as their adapters agree on what each view
+  * type is. A shared bin should hold at least as many views of a type
+  * as one Panels has in its window.
+  *
+  */
+public class RecycleBin {
+    private static final int MAX_SCRAP_PER_TYPE = 4;
+
+    private final SparseArray<ArrayList<View>> mScrap = new SparseArray<ArrayList<View>>();
+    private final SparseIntArray mMaxScrap = new SparseIntArray();
+
+    private ArrayList<View> scrapFor(int type) {
+        ArrayList<View> rv = mScrap.get(type);
+        if ( null == rv ) {
+            rv = new ArrayList<View>(getMaxScrap(type));
+            mScrap.put(type, rv);
+        }
+        return rv;
+    }
+
+    public void setMaxScrap(int type, int max) {
+        mMaxScrap.put(type, max);
+        final ArrayList<View> sc = mScrap.get(type);
+        while ( null != sc && sc.size() > max ) {
+            sc.remove(sc.size() - 1);
+        }
+    }
+
+    public int getMaxScrap(int type) {
+        return mMaxScrap.get(type, MAX_SCRAP_PER_TYPE);
+    }
+
+    public int getScrapCount(int type) {
+        final ArrayList<View> sc = mScrap.get(type);
+        return null == sc ? 0 : sc.size();
+    }
+
+    public void addScrapView(View v, int type) {
+        if ( type != PanelsAdapter.IGNORE_ITEM_VIEW_TYPE ) {
+            final ArrayList<View> sc = scrapFor(type);
+            if ( sc.size() < getMaxScrap(type) ) {
+                sc.add(v);
+            }
+        }
+    }
+
+    public View getScrapView(int type) {
+        View rv = null;
+        if ( type != PanelsAdapter.IGNORE_ITEM_VIEW_TYPE ) {
+            final ArrayList<View> sc = mScrap.get(type);
+            if ( null != sc && sc.size() > 0 ) {
+                rv = sc.remove(sc.size() - 1);
+            }
+        }
+        return rv;
+    }
+
+    public void clear() {
+        mScrap.clear();
+    }
+}
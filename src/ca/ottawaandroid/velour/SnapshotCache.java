@@ -0,0 +1,179 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+  *
+  * Bitmap snapshots of panels, used while Panels is in motion to draw
+  * the panels that are not live. Snapshots are kept in LRU order
+  * within a byte budget; evicted and stale bitmaps go back to a pool
+  * and are redrawn in place rather than reallocated.
+  *
+  */
+public class SnapshotCache {
+    private static class Entry {
+        Bitmap bitmap;
+        int generation;
+    }
+
+    private final LinkedHashMap<View, Entry> mEntries = new LinkedHashMap<View, Entry>(8, 0.75f, true);
+    private final BitmapPool mPool;
+    private final Canvas mCanvas = new Canvas();
+    private int mMaxBytes;
+    private int mBytes;
+    private int mGeneration;
+
+    private int mHits;
+    private int mMisses;
+    private int mEvictions;
+
+    SnapshotCache(int maxBytes) {
+        mMaxBytes = maxBytes;
+        mPool = new BitmapPool(maxBytes);
+    }
+
+    void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        trim();
+        fitPool();
+    }
+
+    // the pool holds what the snapshots leave of the budget, so the two
+    // together never keep more than it
+    private void fitPool() {
+        mPool.setMaxBytes(Math.max(0, mMaxBytes - mBytes));
+    }
+
+    public int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public int getBytes() {
+        return mBytes;
+    }
+
+    public int getHitCount() {
+        return mHits;
+    }
+
+    public int getMissCount() {
+        return mMisses;
+    }
+
+    public int getEvictionCount() {
+        return mEvictions;
+    }
+
+    public void resetCounts() {
+        mHits = 0;
+        mMisses = 0;
+        mEvictions = 0;
+    }
+
+    // a snapshot of v at its current size, redrawn if it has been
+    // invalidated since it was taken; null if v has no size yet
+    Bitmap get(View v) {
+        Bitmap rv = null;
+        final int w = v.getWidth();
+        final int h = v.getHeight();
+
+        if ( w > 0 && h > 0 ) {
+            Entry e = mEntries.get(v);
+            if ( null != e && e.generation == mGeneration && e.bitmap.getWidth() == w && e.bitmap.getHeight() == h ) {
+                mHits++;
+            } else {
+                mMisses++;
+                if ( null == e ) {
+                    e = new Entry();
+                    mEntries.put(v, e);
+                }
+                render(v, e, w, h);
+                trim();
+            }
+            rv = e.bitmap;
+        }
+        return rv;
+    }
+
+    private void render(View v, Entry e, int w, int h) {
+        if ( null != e.bitmap && (e.bitmap.getWidth() != w || e.bitmap.getHeight() != h) ) {
+            release(e);
+        }
+
+        if ( null == e.bitmap ) {
+            e.bitmap = mPool.get(w, h);
+            if ( null == e.bitmap ) {
+                e.bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            }
+            mBytes += BitmapPool.sizeOf(e.bitmap);
+            fitPool();
+        }
+
+        e.bitmap.eraseColor(0);
+        mCanvas.setBitmap(e.bitmap);
+        v.draw(mCanvas);
+        e.generation = mGeneration;
+    }
+
+    private void release(Entry e) {
+        mBytes -= BitmapPool.sizeOf(e.bitmap);
+        fitPool();
+        mPool.put(e.bitmap);
+        e.bitmap = null;
+    }
+
+    // evict least recently used snapshots, always keeping the newest
+    private void trim() {
+        final Iterator<Map.Entry<View, Entry>> it = mEntries.entrySet().iterator();
+        while ( mBytes > mMaxBytes && mEntries.size() > 1 && it.hasNext() ) {
+            final Entry e = it.next().getValue();
+            it.remove();
+            release(e);
+            mEvictions++;
+        }
+    }
+
+    // panel contents may have changed; keep the bitmaps but redraw
+    // them the next time they are needed
+    void invalidateAll() {
+        mGeneration++;
+    }
+
+    void remove(View v) {
+        final Entry e = mEntries.remove(v);
+        if ( null != e ) {
+            release(e);
+        }
+    }
+
+    void clear() {
+        for ( Entry e : mEntries.values() ) {
+            release(e);
+        }
+        mEntries.clear();
+        mPool.clear();
+    }
+}
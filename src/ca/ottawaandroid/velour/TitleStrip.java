@@ -0,0 +1,221 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+  *
+  * Draws the titles of the current panel and its neighbours, sliding
+  * them between the left edge, the centre and the right edge as the
+  * panels scroll. Titles come from a TitleProvider and only the few
+  * near the current position are resolved; each is measured once and
+  * kept in a small cache. Updates only invalidate; the strip's height
+  * depends on the text size alone, so it never needs a new layout
+  * pass.
+  *
+  */
+public class TitleStrip extends View {
+    private static final float DEFAULT_TEXT_SIZE_SP = 14f;
+    private static final int CACHED_TITLES = 8;
+
+    private static class Title {
+        int position = Panels.INVALID_PANEL;
+        CharSequence text;
+        float width;
+        int used;
+    }
+
+    private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Title[] mCache = new Title[CACHED_TITLES];
+    private int mUsed;
+
+    private TitleProvider mProvider;
+    private int mCount;
+
+    private int mPosition;
+    private float mOffset;
+
+    public TitleStrip(Context ctx) {
+        super(ctx);
+        setup();
+    }
+
+    public TitleStrip(Context ctx, AttributeSet as) {
+        super(ctx, as);
+        setup();
+    }
+
+    public TitleStrip(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+        setup();
+    }
+
+    private void setup() {
+        for ( int i = 0; i < CACHED_TITLES; i++ ) {
+            mCache[i] = new Title();
+        }
+        mPaint.setColor(Color.WHITE);
+        mPaint.setTextSize(DEFAULT_TEXT_SIZE_SP * getResources().getDisplayMetrics().scaledDensity);
+    }
+
+    public void setTextColor(int color) {
+        mPaint.setColor(color);
+        invalidate();
+    }
+
+    // the only setter that changes the strip's height
+    public void setTextSize(float px) {
+        mPaint.setTextSize(px);
+        measureTitles();
+        requestLayout();
+        invalidate();
+    }
+
+    public void setTitleProvider(TitleProvider p) {
+        mProvider = p;
+        invalidateTitles();
+    }
+
+    public void setTitleCount(int c) {
+        if ( c != mCount ) {
+            mCount = c;
+            invalidate();
+        }
+    }
+
+    public void invalidateTitle(int position) {
+        for ( int i = 0; i < CACHED_TITLES; i++ ) {
+            if ( mCache[i].position == position ) {
+                forget(mCache[i]);
+            }
+        }
+        invalidate();
+    }
+
+    public void invalidateTitles() {
+        for ( int i = 0; i < CACHED_TITLES; i++ ) {
+            forget(mCache[i]);
+        }
+        invalidate();
+    }
+
+    private void forget(Title t) {
+        t.position = Panels.INVALID_PANEL;
+        t.text = null;
+        t.used = 0;
+    }
+
+    private void measureTitles() {
+        for ( int i = 0; i < CACHED_TITLES; i++ ) {
+            final Title t = mCache[i];
+            if ( null != t.text ) {
+                t.width = mPaint.measureText(t.text, 0, t.text.length());
+            }
+        }
+    }
+
+    // null until the provider has a title for this position
+    private Title resolve(int position) {
+        Title rv = null;
+        Title victim = mCache[0];
+
+        for ( int i = 0; i < CACHED_TITLES && null == rv; i++ ) {
+            final Title t = mCache[i];
+            if ( t.position == position ) {
+                rv = t;
+            } else if ( t.used < victim.used ) {
+                victim = t;
+            }
+        }
+
+        if ( null == rv && null != mProvider ) {
+            final CharSequence text = mProvider.getTitle(position);
+            if ( null != text ) {
+                rv = victim;
+                rv.position = position;
+                rv.text = text;
+                rv.width = mPaint.measureText(text, 0, text.length());
+            }
+        }
+
+        if ( null != rv ) {
+            rv.used = ++mUsed;
+        }
+        return rv;
+    }
+
+    public void setPosition(int position, float offset) {
+        if ( position != mPosition || offset != mOffset ) {
+            mPosition = position;
+            mOffset = offset;
+            invalidate();
+        }
+    }
+
+    private int getTextHeight() {
+        return (int) Math.ceil(mPaint.descent() - mPaint.ascent());
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int h = getPaddingTop() + getTextHeight() + getPaddingBottom();
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                             resolveSize(Math.max(h, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    // d is the title's distance from the centre in panels; -1 rests on
+    // the left edge, 0 in the centre and 1 on the right edge
+    private float titleX(float d, float tw) {
+        final int w = getWidth();
+        final float left = getPaddingLeft();
+        final float centre = (w - tw) / 2;
+        final float right = w - getPaddingRight() - tw;
+        float rv;
+
+        if ( d < -1 ) {
+            rv = left + (d + 1) * w;
+        } else if ( d < 0 ) {
+            rv = centre + d * (centre - left);
+        } else if ( d <= 1 ) {
+            rv = centre + d * (right - centre);
+        } else {
+            rv = right + (d - 1) * w;
+        }
+        return rv;
+    }
+
+    @Override
+    protected void onDraw(Canvas can) {
+        super.onDraw(can);
+        final float y = getPaddingTop() - mPaint.ascent();
+
+        for ( int i = mPosition - 1; i <= mPosition + 2; i++ ) {
+            final Title t = i >= 0 && i < mCount ? resolve(i) : null;
+            if ( null != t ) {
+                can.drawText(t.text, 0, t.text.length(), titleX(i - mPosition - mOffset, t.width), y, mPaint);
+            }
+        }
+    }
+}
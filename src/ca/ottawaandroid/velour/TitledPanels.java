@@ -1,116 +1,129 @@
 package ca.ottawaandroid.velour;
 
-import java.util.ArrayList;
-
 import android.content.Context;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.RelativeLayout;
-import android.widget.TextView;
 
 public class TitledPanels extends RelativeLayout {
+	private static final int PANELS_BACKGROUND = 0xffffff00;
+
 	private Panels mPanels;
-	private TextView mTextLeft;
-	private TextView mTextRight;
-	private int[] mTitleIds;
+	private TitleStrip mStrip;
 
 	public TitledPanels(Context ctx) {
 		super(ctx);
+		build(ctx, null);
 	}
 	
     public TitledPanels(Context ctx, AttributeSet as, int defStyle) {
         super(ctx, as, defStyle);
+        build(ctx, as);
     }
 
     public TitledPanels(Context ctx, AttributeSet as) {
         super(ctx, as);
+        build(ctx, as);
     }
-    
-	@Override
-	protected void onFinishInflate() {
-		super.onFinishInflate();
-		build();
-	}
 
-	private ArrayList<View> extractChildren() {
-		ArrayList<View> ch = new ArrayList<View>();
-		final int cc = getChildCount();
-		for ( int i = 0; i < cc; i++ ) {
-			ch.add(getChildAt(i));
-		}
-		removeAllViews();
-		return ch;
-	}
-	
-	private void build() {
-		final Context ctx = getContext();
-		final ArrayList<View> children = extractChildren();
-
-		inflateViews(ctx);
-		
-		for ( View v : children ) {
-			addOldChild(ctx, v);
-		}
-	}
+	// the strip and panels are created directly, before any inflated
+	// children arrive; those are then routed straight into the panels
+	// by addView, so nothing is extracted, wrapped or re-inflated
+	private void build(final Context ctx, AttributeSet as) {
+		mStrip = new TitleStrip(ctx);
+		mStrip.setId(R.id.title_strip);
+		final LayoutParams slp = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+		slp.addRule(ALIGN_PARENT_TOP);
+		super.addView(mStrip, -1, slp);
 
-	private void addOldChild(final Context ctx, View v) {
-		inflate(ctx, R.layout.titled_panel_content, mPanels);
-		ViewGroup ctn = (ViewGroup) mPanels.getChildAt(mPanels.getChildCount() - 1);
-		ctn.addView(v);
-	}
+		mPanels = new Panels(ctx);
+		mPanels.setId(R.id.panels);
+		mPanels.setBackgroundColor(PANELS_BACKGROUND);
+		setupPanelsOptions(as);
+		final LayoutParams plp = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+		plp.addRule(BELOW, R.id.title_strip);
+		super.addView(mPanels, -1, plp);
 
-	private void inflateViews(final Context ctx) {
-		inflate(ctx, R.layout.titled_panel_panels, this);
-		inflate(ctx, R.layout.titled_panel_text_left, this);
-		inflate(ctx, R.layout.titled_panel_text_right, this);
-		mPanels = (Panels) getChildAt(0);
-		mTextLeft = (TextView) getChildAt(1);
-		mTextRight = (TextView) getChildAt(2);
 		mPanels.addListener(new Panels.Listener() {
 			@Override
-			public void onPanelPending(int panelIndex) {
-				super.onPanelPending(panelIndex);
-				updateText(panelIndex);
+			public void onPanelScrolled(int position, float positionOffset) {
+				super.onPanelScrolled(position, positionOffset);
+				mStrip.setPosition(position, positionOffset);
 			}
 
 			@Override
 			public void onPanelChanged(int panelIndex) {
 				super.onPanelChanged(panelIndex);
-				updateText(panelIndex);
+				mStrip.setTitleCount(mPanels.getPanelCount());
+				mStrip.setPosition(panelIndex, 0);
+			}
+		});
+
+		// children added or removed without a page change, as when the
+		// titles are set before the children arrive
+		mPanels.setOnHierarchyChangeListener(new OnHierarchyChangeListener() {
+			@Override
+			public void onChildViewAdded(View parent, View child) {
+				mStrip.setTitleCount(mPanels.getPanelCount());
+			}
+
+			@Override
+			public void onChildViewRemoved(View parent, View child) {
+				mStrip.setTitleCount(mPanels.getPanelCount());
 			}
 		});
 	}
 
-	private void updateTextView(TextView v, int resId) {
-		if ( resId > 0 ) {
-			v.setText(resId);
-		} else {
-			v.setText("");
+	private void setupPanelsOptions(AttributeSet as) {
+		boolean wp = false;
+		int fv = 500;
+		int dp = 1;
+		if ( null != as ) {
+			wp = as.getAttributeBooleanValue("velour", "permit_wrapping", wp);
+			fv = as.getAttributeIntValue("velour", "fling_velocity", fv);
+			dp = as.getAttributeIntValue("velour", "default_panel", dp);
 		}
+		mPanels.setWrappingPermitted(wp);
+		mPanels.setFlingVelocity(fv);
+		mPanels.setDefaultPanel(dp);
 	}
-	private void updateText(int panelIndex) {
-		if ( mTitleIds.length > 0 ) {
-			updateTextView(mTextLeft, panelIndex > 0 ? mTitleIds[panelIndex - 1] : 0);
-			updateTextView(mTextRight, panelIndex < mTitleIds.length - 1 ? mTitleIds[panelIndex + 1] : 0);
+
+	@Override
+	public void addView(View ch, int index, ViewGroup.LayoutParams lp) {
+		if ( ch == mStrip || ch == mPanels || null == mPanels ) {
+			super.addView(ch, index, lp);
+		} else {
+			mPanels.addView(ch, index, lp);
 		}
 	}
 
-	public void setTitles(int[] titleIds) {
-		mTitleIds = titleIds;
-		updateTitles();
-		updateText(mPanels.getCurrentPanel());
+	public Panels getPanels() {
+		return mPanels;
 	}
 
-	private void updateTitles() {
-		for ( int i = 0; i < mTitleIds.length; i++ ) {
-			updateTitle(i, mTitleIds[i]);
-		}
+	public void setTitles(final int[] titleIds) {
+		setTitleProvider(new TitleProvider() {
+			@Override
+			public CharSequence getTitle(int position) {
+				final int id = position < titleIds.length ? titleIds[position] : 0;
+				return id > 0 ? getResources().getText(id) : null;
+			}
+		});
+	}
+
+	public void setTitleProvider(TitleProvider p) {
+		mStrip.setTitleProvider(p);
+		mStrip.setTitleCount(mPanels.getPanelCount());
+		mStrip.setPosition(mPanels.getCurrentPanel(), 0);
+	}
+
+	// for providers that load titles asynchronously
+	public void notifyTitleChanged(int position) {
+		mStrip.invalidateTitle(position);
 	}
 
-	private void updateTitle(int i, int resId) {
-		ViewGroup v = (ViewGroup) mPanels.getChildAt(i);
-		((TextView) v.getChildAt(0)).setText(resId);
+	public void notifyTitlesChanged() {
+		mStrip.invalidateTitles();
 	}
 }
@@ -0,0 +1,95 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.graphics.Canvas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+  *
+  * The cost of one frame of a held drag, computeScroll and then
+  * dispatchDraw, in each of the drawing states: neutral between two
+  * panels in the middle, and wrapping off the left of the first
+  * panel or the right of the last.
+  *
+  */
+@State(Scope.Thread)
+public class DrawBenchmark {
+    static final String NEUTRAL = "neutral";
+    static final String LEFT = "left";
+    static final String RIGHT = "right";
+
+    private static final float X = Harness.WIDTH / 2;
+    private static final float Y = Harness.HEIGHT / 2;
+    private static final float DX = Harness.WIDTH / 4;
+
+    @Param({ "3", "100", "10000" })
+    public int panels;
+
+    @Param({ Fixtures.CHILDREN, Fixtures.ADAPTER })
+    public String source;
+
+    @Param({ NEUTRAL, LEFT, RIGHT })
+    public String state;
+
+    private Panels mPanels;
+    private final Canvas mCanvas = new Canvas(Harness.WIDTH, Harness.HEIGHT);
+
+    @Setup
+    public void setUp() {
+        final Harness h = new Harness();
+        mPanels = new Panels(h.ctx);
+        mPanels.setWrappingPermitted(true);
+        Fixtures.fill(mPanels, source, panels);
+        h.attach(mPanels);
+        h.settle();
+
+        final int last = panels - 1;
+        int pi = panels / 2;
+        float dx = -DX;
+        if ( LEFT.equals(state) ) {
+            pi = 0;
+            dx = DX;
+        } else if ( RIGHT.equals(state) ) {
+            pi = last;
+        }
+        mPanels.setCurrentPanel(pi, false);
+        h.settle();
+        h.drag(X, Y, dx, 0, 4);
+        h.frame();
+
+        final int sx = mPanels.getScrollX();
+        final int w = mPanels.getWidth();
+        final boolean wrapped = sx < 0 || sx > last * w;
+        if ( wrapped != !NEUTRAL.equals(state) ) {
+            throw new IllegalStateException("the drag is not " + state + " at " + sx);
+        }
+    }
+
+    @Benchmark
+    public Canvas frame() {
+        mPanels.computeScroll();
+        mPanels.dispatchDraw(mCanvas);
+        return mCanvas;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.view.View;
+
+/**
+  *
+  * The Panels the benchmarks run over, filled either with plain
+  * children or from an adapter, and attached to a Harness window at
+  * rest.
+  *
+  */
+final class Fixtures {
+    static final String CHILDREN = "children";
+    static final String ADAPTER = "adapter";
+
+    private Fixtures() {
+    }
+
+    static Panels panels(Harness h, String source, int count) {
+        final Panels rv = new Panels(h.ctx);
+        fill(rv, source, count);
+        h.attach(rv);
+        h.settle();
+        return rv;
+    }
+
+    static void fill(Panels p, String source, int count) {
+        if ( ADAPTER.equals(source) ) {
+            p.setAdapter(new Harness.Adapter(count));
+        } else {
+            for ( int i = 0; i < count; i++ ) {
+                p.addView(new View(p.getContext()));
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+  *
+  * Inflating a TitledPanels with its children, built directly against
+  * the old extract and re-wrap path of LegacyTitledPanels. Each
+  * child is added as the inflater adds it. Setup checks once that
+  * each path builds the hierarchy it should: the strip, the panels
+  * and the children for the direct path, with a wrapper around each
+  * child for the old one.
+  *
+  */
+@State(Scope.Thread)
+public class InflationBenchmark {
+    @Param({ "3", "10", "100" })
+    public int children;
+
+    private Context mCtx;
+
+    @Setup
+    public void setUp() {
+        mCtx = new Context();
+        // views in the finished hierarchy, the TitledPanels included
+        checkViews("direct", direct(), children + 3);
+        checkViews("legacy", legacy(), 2 * children + 3);
+    }
+
+    private static void checkViews(String path, View v, int expected) {
+        final int c = count(v);
+        if ( c != expected ) {
+            throw new IllegalStateException(path + " built " + c + " views, not " + expected);
+        }
+    }
+
+    @Benchmark
+    public ViewGroup direct() {
+        final TitledPanels rv = new TitledPanels(mCtx);
+        for ( int i = 0; i < children; i++ ) {
+            rv.addView(new View(mCtx));
+        }
+        return rv;
+    }
+
+    @Benchmark
+    public ViewGroup legacy() {
+        final LegacyTitledPanels rv = new LegacyTitledPanels(mCtx);
+        for ( int i = 0; i < children; i++ ) {
+            rv.addView(new View(mCtx));
+        }
+        rv.finishInflate();
+        return rv;
+    }
+
+    private static int count(View v) {
+        int rv = 1;
+        if ( v instanceof ViewGroup ) {
+            final ViewGroup g = (ViewGroup) v;
+            for ( int i = 0; i < g.getChildCount(); i++ ) {
+                rv += count(g.getChildAt(i));
+            }
+        }
+        return rv;
+    }
+}
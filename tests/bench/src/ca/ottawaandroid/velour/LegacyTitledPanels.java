@@ -0,0 +1,117 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.ArrayList;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.RelativeLayout;
+
+/**
+  *
+  * TitledPanels as it was built before it created its views directly:
+  * once its children were inflated it took them all out, inflated the
+  * panels and title strip layouts, and put each child back into the
+  * panels inside a titled_panel_content LinearLayout of its own. The
+  * three layouts are built here in code, as the shadow inflater
+  * cannot parse them, so the comparison leaves out the XML parsing
+  * the old path also paid for.
+  *
+  */
+class LegacyTitledPanels extends RelativeLayout {
+    private Panels mPanels;
+    private TitleStrip mStrip;
+
+    LegacyTitledPanels(Context ctx) {
+        super(ctx);
+    }
+
+    // what onFinishInflate did
+    void finishInflate() {
+        final Context ctx = getContext();
+        final ArrayList<View> children = extractChildren();
+
+        inflateViews(ctx);
+
+        for ( View v : children ) {
+            addOldChild(ctx, v);
+        }
+    }
+
+    Panels getPanels() {
+        return mPanels;
+    }
+
+    private ArrayList<View> extractChildren() {
+        final ArrayList<View> ch = new ArrayList<View>();
+        final int cc = getChildCount();
+        for ( int i = 0; i < cc; i++ ) {
+            ch.add(getChildAt(i));
+        }
+        removeAllViews();
+        return ch;
+    }
+
+    // titled_panel_content
+    private void addOldChild(final Context ctx, View v) {
+        final LinearLayout ctn = new LinearLayout(ctx);
+        ctn.setOrientation(LinearLayout.VERTICAL);
+        mPanels.addView(ctn, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                        ViewGroup.LayoutParams.MATCH_PARENT));
+        ctn.addView(v);
+    }
+
+    // titled_panel_panels and titled_panel_title_strip
+    private void inflateViews(final Context ctx) {
+        final Panels p = new Panels(ctx);
+        p.setId(R.id.panels);
+        p.setBackgroundColor(0xffffff00);
+        p.setWrappingPermitted(false);
+        p.setFlingVelocity(500);
+        p.setDefaultPanel(1);
+        final LayoutParams plp = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+        plp.addRule(BELOW, R.id.title_strip);
+        addView(p, plp);
+
+        final TitleStrip s = new TitleStrip(ctx);
+        s.setId(R.id.title_strip);
+        final LayoutParams slp = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+        slp.addRule(ALIGN_PARENT_TOP);
+        addView(s, slp);
+
+        mPanels = (Panels) getChildAt(0);
+        mStrip = (TitleStrip) getChildAt(1);
+        mPanels.addListener(new Panels.Listener() {
+            @Override
+            public void onPanelScrolled(int position, float positionOffset) {
+                super.onPanelScrolled(position, positionOffset);
+                mStrip.setPosition(position, positionOffset);
+            }
+
+            @Override
+            public void onPanelChanged(int panelIndex) {
+                super.onPanelChanged(panelIndex);
+                mStrip.setTitleCount(mPanels.getPanelCount());
+                mStrip.setPosition(panelIndex, 0);
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.graphics.Canvas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+  *
+  * The cost of updating the titles of a TitledPanels: the strip
+  * following the scroll a tenth of a panel a frame, across every
+  * panel in turn, and a provider reporting a changed title for the
+  * panel in view. Both end with the strip's redraw.
+  *
+  */
+@State(Scope.Thread)
+public class TitleBenchmark {
+    private static final int STEPS = 10;
+
+    @Param({ "3", "100", "10000" })
+    public int panels;
+
+    private TitledPanels mTitled;
+    private TitleStrip mStrip;
+    private final Canvas mCanvas = new Canvas(Harness.WIDTH, Harness.HEIGHT);
+    private int mPosition;
+    private int mStep;
+
+    @Setup
+    public void setUp() {
+        final Harness h = new Harness();
+        mTitled = new TitledPanels(h.ctx);
+        mTitled.getPanels().setAdapter(new Harness.Adapter(panels));
+        final int[] ids = new int[panels];
+        for ( int i = 0; i < panels; i++ ) {
+            ids[i] = i + 1;
+        }
+        mTitled.setTitles(ids);
+        mStrip = (TitleStrip) mTitled.findViewById(R.id.title_strip);
+        h.attach(mTitled);
+        h.settle();
+    }
+
+    @Benchmark
+    public Canvas scroll() {
+        mStep++;
+        if ( STEPS == mStep ) {
+            mStep = 0;
+            mPosition = (mPosition + 1) % panels;
+        }
+        mStrip.setPosition(mPosition, (float) mStep / STEPS);
+        mStrip.draw(mCanvas);
+        return mCanvas;
+    }
+
+    @Benchmark
+    public Canvas changeTitle() {
+        mTitled.notifyTitleChanged(mTitled.getPanels().getCurrentPanel());
+        mStrip.draw(mCanvas);
+        return mCanvas;
+    }
+}
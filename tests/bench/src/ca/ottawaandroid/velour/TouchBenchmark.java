@@ -0,0 +1,130 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewRootImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+  *
+  * The cost of one touch event: onInterceptTouchEvent while a
+  * vertical gesture passes through Panels to its parent, and
+  * onTouchEvent once Panels is dragging. Each move event carries a batched sample, as on a
+  * device, and the moves swing back and forth so the drag never runs
+  * out of panels.
+  *
+  */
+public class TouchBenchmark {
+    private static final int MOVES = 100;
+    private static final float X = Harness.WIDTH / 2;
+    private static final float Y = Harness.HEIGHT / 2;
+    private static final float DRAGGED = X - Harness.WIDTH / 8;
+
+    @State(Scope.Thread)
+    public static class Undecided {
+        @Param({ "3", "100", "10000" })
+        public int panels;
+
+        @Param({ Fixtures.CHILDREN, Fixtures.ADAPTER })
+        public String source;
+
+        Panels mPanels;
+        MotionEvent[] mMoves;
+        int mNext;
+
+        @Setup
+        public void setUp() {
+            final Harness h = new Harness();
+            mPanels = Fixtures.panels(h, source, panels);
+            final long t = SystemClock.uptimeMillis();
+            final MotionEvent down = MotionEvent.obtain(t, t, MotionEvent.ACTION_DOWN, X, Y, 0);
+            mPanels.onInterceptTouchEvent(down);
+            mMoves = moves(t, X, 0, Harness.HEIGHT / 8);
+            for ( MotionEvent e : mMoves ) {
+                if ( mPanels.onInterceptTouchEvent(e) ) {
+                    throw new IllegalStateException("Panels took the vertical gesture");
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Dragging {
+        @Param({ "3", "100", "10000" })
+        public int panels;
+
+        @Param({ Fixtures.CHILDREN, Fixtures.ADAPTER })
+        public String source;
+
+        Panels mPanels;
+        MotionEvent[] mMoves;
+        int mNext;
+
+        @Setup
+        public void setUp() {
+            final Harness h = new Harness();
+            mPanels = Fixtures.panels(h, source, panels);
+            h.drag(X, Y, DRAGGED - X, 0, 4);
+            if ( !h.window().isInterceptDisallowed() ) {
+                throw new IllegalStateException("Panels did not take the drag");
+            }
+            mMoves = moves(SystemClock.uptimeMillis(), DRAGGED, Harness.WIDTH / 4, 0);
+        }
+    }
+
+    // one swing of the given amplitudes either side of cx, Y, a
+    // frame apart
+    private static MotionEvent[] moves(long downTime, float cx, float ax, float ay) {
+        final MotionEvent[] rv = new MotionEvent[MOVES];
+        float lastX = cx;
+        float lastY = Y;
+        for ( int i = 0; i < MOVES; i++ ) {
+            final float s = (float) Math.sin((i + 1) * 2 * Math.PI / MOVES);
+            final float x = cx - ax * s;
+            final float y = Y - ay * s;
+            final long t = downTime + (i + 1) * ViewRootImpl.FRAME_MILLIS;
+            rv[i] = MotionEvent.obtain(downTime, t - ViewRootImpl.FRAME_MILLIS / 2,
+                                       MotionEvent.ACTION_MOVE, (lastX + x) / 2, (lastY + y) / 2, 0);
+            rv[i].addBatch(t, x, y, 1, 1, 0);
+            lastX = x;
+            lastY = y;
+        }
+        return rv;
+    }
+
+    @Benchmark
+    public boolean intercept(Undecided s) {
+        final MotionEvent e = s.mMoves[s.mNext];
+        s.mNext = (s.mNext + 1) % MOVES;
+        return s.mPanels.onInterceptTouchEvent(e);
+    }
+
+    @Benchmark
+    public boolean touch(Dragging s) {
+        final MotionEvent e = s.mMoves[s.mNext];
+        s.mNext = (s.mNext + 1) % MOVES;
+        return s.mPanels.onTouchEvent(e);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.content.res;
+
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+
+public class Resources {
+    private final DisplayMetrics mMetrics = new DisplayMetrics();
+    private final SparseArray<CharSequence> mTexts = new SparseArray<CharSequence>();
+
+    public DisplayMetrics getDisplayMetrics() {
+        return mMetrics;
+    }
+
+    // there are no string resources; the id stands in for the text,
+    // which is kept as the device keeps its string block
+    public CharSequence getText(int id) {
+        CharSequence rv = mTexts.get(id);
+        if ( null == rv ) {
+            rv = "text " + id;
+            mTexts.put(id, rv);
+        }
+        return rv;
+    }
+
+    public String getString(int id) {
+        return getText(id).toString();
+    }
+}
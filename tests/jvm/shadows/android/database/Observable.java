@@ -0,0 +1,55 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.database;
+
+import java.util.ArrayList;
+
+public abstract class Observable<T> {
+    protected final ArrayList<T> mObservers = new ArrayList<T>();
+
+    public void registerObserver(T observer) {
+        if ( null == observer ) {
+            throw new IllegalArgumentException("The observer is null.");
+        }
+        synchronized (mObservers) {
+            if ( mObservers.contains(observer) ) {
+                throw new IllegalStateException("Observer " + observer + " is already registered.");
+            }
+            mObservers.add(observer);
+        }
+    }
+
+    public void unregisterObserver(T observer) {
+        if ( null == observer ) {
+            throw new IllegalArgumentException("The observer is null.");
+        }
+        synchronized (mObservers) {
+            final int i = mObservers.indexOf(observer);
+            if ( i < 0 ) {
+                throw new IllegalStateException("Observer " + observer + " was not registered.");
+            }
+            mObservers.remove(i);
+        }
+    }
+
+    public void unregisterAll() {
+        synchronized (mObservers) {
+            mObservers.clear();
+        }
+    }
+}
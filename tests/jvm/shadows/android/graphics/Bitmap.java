@@ -0,0 +1,96 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.graphics;
+
+/**
+  *
+  * Dimensions and bookkeeping only; there are no pixels.
+  *
+  */
+public final class Bitmap {
+    public enum Config {
+        ALPHA_8(1),
+        RGB_565(2),
+        ARGB_4444(2),
+        ARGB_8888(4);
+
+        final int mBytes;
+
+        Config(int bytes) {
+            mBytes = bytes;
+        }
+    }
+
+    private final int mWidth;
+    private final int mHeight;
+    private final Config mConfig;
+    private boolean mRecycled;
+    private int mErased;
+
+    private Bitmap(int w, int h, Config c) {
+        mWidth = w;
+        mHeight = h;
+        mConfig = c;
+    }
+
+    public static Bitmap createBitmap(int w, int h, Config c) {
+        if ( w <= 0 || h <= 0 ) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        return new Bitmap(w, h, c);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public Config getConfig() {
+        return mConfig;
+    }
+
+    public int getRowBytes() {
+        return mWidth * mConfig.mBytes;
+    }
+
+    public int getByteCount() {
+        return getRowBytes() * mHeight;
+    }
+
+    public void eraseColor(int c) {
+        checkRecycled();
+        mErased++;
+    }
+
+    public void recycle() {
+        mRecycled = true;
+    }
+
+    public boolean isRecycled() {
+        return mRecycled;
+    }
+
+    void checkRecycled() {
+        if ( mRecycled ) {
+            throw new IllegalStateException("Can't use a recycled bitmap");
+        }
+    }
+}
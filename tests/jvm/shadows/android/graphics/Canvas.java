@@ -0,0 +1,177 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.graphics;
+
+/**
+  *
+  * Keeps the translation and save stack and counts what is drawn, so
+  * that tests can see where and how often things were drawn. Nothing
+  * is rasterised.
+  *
+  */
+public class Canvas {
+    private Bitmap mBitmap;
+    private int mWidth;
+    private int mHeight;
+
+    private float[] mStack = new float[32];
+    private int mSaveCount = 1;
+    private float mTranslateX;
+    private float mTranslateY;
+
+    private int mBitmapDraws;
+    private int mTextDraws;
+    private int mShapeDraws;
+
+    public Canvas() {
+    }
+
+    public Canvas(Bitmap b) {
+        setBitmap(b);
+    }
+
+    // a canvas the size of a window, with no bitmap behind it
+    public Canvas(int w, int h) {
+        mWidth = w;
+        mHeight = h;
+    }
+
+    public void setBitmap(Bitmap b) {
+        if ( null != b ) {
+            b.checkRecycled();
+            mWidth = b.getWidth();
+            mHeight = b.getHeight();
+        }
+        mBitmap = b;
+        mSaveCount = 1;
+        mTranslateX = 0;
+        mTranslateY = 0;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public boolean isHardwareAccelerated() {
+        return false;
+    }
+
+    public int save() {
+        if ( mSaveCount * 2 > mStack.length ) {
+            final float[] ns = new float[mStack.length * 2];
+            System.arraycopy(mStack, 0, ns, 0, mStack.length);
+            mStack = ns;
+        }
+        mStack[(mSaveCount - 1) * 2] = mTranslateX;
+        mStack[(mSaveCount - 1) * 2 + 1] = mTranslateY;
+        return mSaveCount++;
+    }
+
+    public int save(int flags) {
+        return save();
+    }
+
+    public void restore() {
+        if ( mSaveCount <= 1 ) {
+            throw new IllegalStateException("Underflow in restore");
+        }
+        mSaveCount--;
+        mTranslateX = mStack[(mSaveCount - 1) * 2];
+        mTranslateY = mStack[(mSaveCount - 1) * 2 + 1];
+    }
+
+    public void restoreToCount(int count) {
+        if ( count < 1 || count > mSaveCount ) {
+            throw new IllegalArgumentException("bad save count " + count);
+        }
+        while ( mSaveCount > count ) {
+            restore();
+        }
+    }
+
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    public void translate(float dx, float dy) {
+        mTranslateX += dx;
+        mTranslateY += dy;
+    }
+
+    // where the origin is, in the coordinates of the canvas
+    public float getTranslateX() {
+        return mTranslateX;
+    }
+
+    public float getTranslateY() {
+        return mTranslateY;
+    }
+
+    public boolean clipRect(int l, int t, int r, int b) {
+        return r > l && b > t;
+    }
+
+    public boolean clipRect(float l, float t, float r, float b) {
+        return r > l && b > t;
+    }
+
+    public boolean clipRect(Rect r) {
+        return clipRect(r.left, r.top, r.right, r.bottom);
+    }
+
+    public void drawColor(int color) {
+        mShapeDraws++;
+    }
+
+    public void drawRect(float l, float t, float r, float b, Paint p) {
+        mShapeDraws++;
+    }
+
+    public void drawRect(Rect r, Paint p) {
+        mShapeDraws++;
+    }
+
+    public void drawBitmap(Bitmap b, float left, float top, Paint p) {
+        b.checkRecycled();
+        mBitmapDraws++;
+    }
+
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint p) {
+        mTextDraws++;
+    }
+
+    public void drawText(String text, float x, float y, Paint p) {
+        mTextDraws++;
+    }
+
+    public int getBitmapDrawCount() {
+        return mBitmapDraws;
+    }
+
+    public int getTextDrawCount() {
+        return mTextDraws;
+    }
+
+    public int getShapeDrawCount() {
+        return mShapeDraws;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.graphics;
+
+public class Color {
+    public static final int BLACK = 0xff000000;
+    public static final int DKGRAY = 0xff444444;
+    public static final int GRAY = 0xff888888;
+    public static final int LTGRAY = 0xffcccccc;
+    public static final int WHITE = 0xffffffff;
+    public static final int RED = 0xffff0000;
+    public static final int GREEN = 0xff00ff00;
+    public static final int BLUE = 0xff0000ff;
+    public static final int YELLOW = 0xffffff00;
+    public static final int TRANSPARENT = 0;
+
+    public static int argb(int a, int r, int g, int b) {
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    public static int rgb(int r, int g, int b) {
+        return argb(0xff, r, g, b);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.graphics;
+
+/**
+  *
+  * Text is measured as if every character were half the text size
+  * wide.
+  *
+  */
+public class Paint {
+    public static final int ANTI_ALIAS_FLAG = 1;
+    public static final int FILTER_BITMAP_FLAG = 2;
+    public static final int DITHER_FLAG = 4;
+
+    private int mFlags;
+    private int mColor = Color.BLACK;
+    private int mAlpha = 255;
+    private float mTextSize = 12.0f;
+
+    public Paint() {
+    }
+
+    public Paint(int flags) {
+        mFlags = flags;
+    }
+
+    public Paint(Paint p) {
+        mFlags = p.mFlags;
+        mColor = p.mColor;
+        mAlpha = p.mAlpha;
+        mTextSize = p.mTextSize;
+    }
+
+    public int getFlags() {
+        return mFlags;
+    }
+
+    public void setFlags(int flags) {
+        mFlags = flags;
+    }
+
+    public void setAntiAlias(boolean aa) {
+        mFlags = aa ? mFlags | ANTI_ALIAS_FLAG : mFlags & ~ANTI_ALIAS_FLAG;
+    }
+
+    public void setFilterBitmap(boolean f) {
+        mFlags = f ? mFlags | FILTER_BITMAP_FLAG : mFlags & ~FILTER_BITMAP_FLAG;
+    }
+
+    public int getColor() {
+        return mColor;
+    }
+
+    public void setColor(int color) {
+        mColor = color;
+    }
+
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    public void setAlpha(int a) {
+        mAlpha = a;
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public void setTextSize(float size) {
+        mTextSize = size;
+    }
+
+    public float measureText(CharSequence text, int start, int end) {
+        return (end - start) * mTextSize / 2;
+    }
+
+    public float measureText(String text) {
+        return measureText(text, 0, text.length());
+    }
+
+    public float ascent() {
+        return -mTextSize * 0.9f;
+    }
+
+    public float descent() {
+        return mTextSize * 0.25f;
+    }
+}
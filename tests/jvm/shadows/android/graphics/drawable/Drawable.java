@@ -0,0 +1,43 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.graphics.drawable;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+public abstract class Drawable {
+    private final Rect mBounds = new Rect();
+
+    public void setBounds(int l, int t, int r, int b) {
+        mBounds.set(l, t, r, b);
+    }
+
+    public void setBounds(Rect r) {
+        setBounds(r.left, r.top, r.right, r.bottom);
+    }
+
+    public final Rect getBounds() {
+        return mBounds;
+    }
+
+    public abstract void draw(Canvas can);
+
+    public abstract void setAlpha(int alpha);
+
+    public abstract int getOpacity();
+}
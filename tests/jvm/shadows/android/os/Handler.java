@@ -0,0 +1,59 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+public class Handler {
+    private final Looper mLooper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        mLooper = looper;
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final boolean post(Runnable r) {
+        return postAtTime(r, SystemClock.uptimeMillis());
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return postAtTime(r, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean postAtTime(Runnable r, long uptimeMillis) {
+        mLooper.getQueue().enqueue(this, r, uptimeMillis);
+        return true;
+    }
+
+    public final boolean postAtFrontOfQueue(Runnable r) {
+        return postAtTime(r, 0);
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.getQueue().remove(this, r);
+    }
+
+    public final boolean hasCallbacks(Runnable r) {
+        return mLooper.getQueue().has(this, r);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+/**
+  *
+  * There is one looper, the main one, and nothing loops it: tests run
+  * its queue themselves, see MessageQueue.
+  *
+  */
+public final class Looper {
+    private static final Looper sMain = new Looper();
+
+    private final MessageQueue mQueue = new MessageQueue();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return sMain;
+    }
+
+    public static Looper myLooper() {
+        return sMain;
+    }
+
+    public static MessageQueue myQueue() {
+        return sMain.mQueue;
+    }
+
+    public MessageQueue getQueue() {
+        return mQueue;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+import java.util.ArrayList;
+
+/**
+  *
+  * Runnables in order of time, and the idle handlers, kept in arrays
+  * that only grow so that posting and running never allocate once
+  * warm. Messages may be posted from any thread; they are only run by
+  * the test's thread, through runDue and runUntilIdle, which are not
+  * on the device.
+  *
+  */
+public final class MessageQueue {
+    public interface IdleHandler {
+        boolean queueIdle();
+    }
+
+    private long[] mWhen = new long[32];
+    private Runnable[] mWhat = new Runnable[32];
+    private Object[] mToken = new Object[32];
+    private int mCount;
+
+    private final ArrayList<IdleHandler> mIdleHandlers = new ArrayList<IdleHandler>();
+    private IdleHandler[] mPendingIdle = new IdleHandler[4];
+
+    MessageQueue() {
+    }
+
+    public void addIdleHandler(IdleHandler h) {
+        synchronized (this) {
+            mIdleHandlers.add(h);
+        }
+    }
+
+    public void removeIdleHandler(IdleHandler h) {
+        synchronized (this) {
+            mIdleHandlers.remove(h);
+        }
+    }
+
+    public boolean isIdle() {
+        synchronized (this) {
+            return 0 == mCount || mWhen[0] > SystemClock.uptimeMillis();
+        }
+    }
+
+    synchronized void enqueue(Object token, Runnable r, long when) {
+        if ( mCount == mWhen.length ) {
+            final int n = mCount * 2;
+            final long[] nw = new long[n];
+            final Runnable[] nr = new Runnable[n];
+            final Object[] nt = new Object[n];
+            System.arraycopy(mWhen, 0, nw, 0, mCount);
+            System.arraycopy(mWhat, 0, nr, 0, mCount);
+            System.arraycopy(mToken, 0, nt, 0, mCount);
+            mWhen = nw;
+            mWhat = nr;
+            mToken = nt;
+        }
+        // after everything due at the same time
+        int i = mCount;
+        while ( i > 0 && mWhen[i - 1] > when ) {
+            i--;
+        }
+        System.arraycopy(mWhen, i, mWhen, i + 1, mCount - i);
+        System.arraycopy(mWhat, i, mWhat, i + 1, mCount - i);
+        System.arraycopy(mToken, i, mToken, i + 1, mCount - i);
+        mWhen[i] = when;
+        mWhat[i] = r;
+        mToken[i] = token;
+        mCount++;
+    }
+
+    synchronized void remove(Object token, Runnable r) {
+        int j = 0;
+        for ( int i = 0; i < mCount; i++ ) {
+            if ( mWhat[i] != r || (null != token && mToken[i] != token) ) {
+                mWhen[j] = mWhen[i];
+                mWhat[j] = mWhat[i];
+                mToken[j] = mToken[i];
+                j++;
+            }
+        }
+        for ( int i = j; i < mCount; i++ ) {
+            mWhat[i] = null;
+            mToken[i] = null;
+        }
+        mCount = j;
+    }
+
+    synchronized boolean has(Object token, Runnable r) {
+        for ( int i = 0; i < mCount; i++ ) {
+            if ( mWhat[i] == r && (null == token || mToken[i] == token) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Runnable next(long now) {
+        Runnable rv = null;
+        if ( mCount > 0 && mWhen[0] <= now ) {
+            rv = mWhat[0];
+            mCount--;
+            System.arraycopy(mWhen, 1, mWhen, 0, mCount);
+            System.arraycopy(mWhat, 1, mWhat, 0, mCount);
+            System.arraycopy(mToken, 1, mToken, 0, mCount);
+            mWhat[mCount] = null;
+            mToken[mCount] = null;
+        }
+        return rv;
+    }
+
+    // not on the device: run everything due by now, including what
+    // those post for now; returns how many ran
+    public int runDue() {
+        final long now = SystemClock.uptimeMillis();
+        int rv = 0;
+        Runnable r = next(now);
+        while ( null != r ) {
+            r.run();
+            rv++;
+            r = next(now);
+        }
+        return rv;
+    }
+
+    // not on the device: call the idle handlers once, as the queue does
+    // each time it runs out of messages; false when none are left
+    public boolean dispatchIdle() {
+        int c;
+        synchronized (this) {
+            c = mIdleHandlers.size();
+            if ( mPendingIdle.length < c ) {
+                mPendingIdle = new IdleHandler[c * 2];
+            }
+            for ( int i = 0; i < c; i++ ) {
+                mPendingIdle[i] = mIdleHandlers.get(i);
+            }
+        }
+        for ( int i = 0; i < c; i++ ) {
+            final IdleHandler h = mPendingIdle[i];
+            mPendingIdle[i] = null;
+            if ( !h.queueIdle() ) {
+                removeIdleHandler(h);
+            }
+        }
+        synchronized (this) {
+            return !mIdleHandlers.isEmpty();
+        }
+    }
+
+    // not on the device: run messages and idle handlers until the queue
+    // would block
+    public void runUntilIdle() {
+        boolean more = true;
+        for ( int guard = 0; more && guard < 100000; guard++ ) {
+            if ( 0 == runDue() ) {
+                more = dispatchIdle() && !isIdle();
+            }
+        }
+    }
+
+    // not on the device: drop every message and idle handler, between
+    // tests
+    public synchronized void clear() {
+        for ( int i = 0; i < mCount; i++ ) {
+            mWhat[i] = null;
+            mToken[i] = null;
+        }
+        mCount = 0;
+        mIdleHandlers.clear();
+    }
+}
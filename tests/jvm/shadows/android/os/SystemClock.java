@@ -0,0 +1,52 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+/**
+  *
+  * A clock that only moves when told to, so that gestures and
+  * animations replay identically.
+  *
+  */
+public final class SystemClock {
+    private static volatile long sNow = 1000;
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return sNow;
+    }
+
+    public static long elapsedRealtime() {
+        return sNow;
+    }
+
+    public static void sleep(long ms) {
+        advance(ms);
+    }
+
+    // not on the device
+    public static void setUptimeMillis(long now) {
+        sNow = now;
+    }
+
+    public static void advance(long ms) {
+        sNow += ms;
+    }
+}
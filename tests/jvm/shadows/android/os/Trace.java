@@ -0,0 +1,36 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.os;
+
+public final class Trace {
+    private static int sDepth;
+
+    private Trace() {
+    }
+
+    public static void beginSection(String name) {
+        sDepth++;
+    }
+
+    public static void endSection() {
+        if ( sDepth <= 0 ) {
+            throw new IllegalStateException("endSection without beginSection");
+        }
+        sDepth--;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.util;
+
+public class DisplayMetrics {
+    public static final int DENSITY_DEFAULT = 160;
+
+    public float density = 1.0f;
+    public float scaledDensity = 1.0f;
+    public int densityDpi = DENSITY_DEFAULT;
+    public int widthPixels = 480;
+    public int heightPixels = 800;
+}
@@ -0,0 +1,148 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.util;
+
+/**
+  *
+  * Keys kept sorted in parallel arrays, as on the device, so that
+  * lookups and updates of existing keys never allocate.
+  *
+  */
+public class SparseArray<E> implements Cloneable {
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    public SparseArray() {
+        this(10);
+    }
+
+    public SparseArray(int capacity) {
+        mKeys = new int[Math.max(capacity, 1)];
+        mValues = new Object[Math.max(capacity, 1)];
+    }
+
+    public E get(int key) {
+        return get(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int key, E valueIfKeyNotFound) {
+        final int i = binarySearch(mKeys, mSize, key);
+        return i < 0 ? valueIfKeyNotFound : (E) mValues[i];
+    }
+
+    public void delete(int key) {
+        final int i = binarySearch(mKeys, mSize, key);
+        if ( i >= 0 ) {
+            removeAt(i);
+        }
+    }
+
+    public void remove(int key) {
+        delete(key);
+    }
+
+    public void removeAt(int index) {
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        mValues[mSize] = null;
+    }
+
+    public void put(int key, E value) {
+        int i = binarySearch(mKeys, mSize, key);
+        if ( i >= 0 ) {
+            mValues[i] = value;
+        } else {
+            i = ~i;
+            if ( mSize == mKeys.length ) {
+                final int[] nk = new int[mSize * 2];
+                final Object[] nv = new Object[mSize * 2];
+                System.arraycopy(mKeys, 0, nk, 0, mSize);
+                System.arraycopy(mValues, 0, nv, 0, mSize);
+                mKeys = nk;
+                mValues = nv;
+            }
+            System.arraycopy(mKeys, i, mKeys, i + 1, mSize - i);
+            System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+            mKeys[i] = key;
+            mValues[i] = value;
+            mSize++;
+        }
+    }
+
+    public void append(int key, E value) {
+        put(key, value);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        return (E) mValues[index];
+    }
+
+    public void setValueAt(int index, E value) {
+        mValues[index] = value;
+    }
+
+    public int indexOfKey(int key) {
+        return binarySearch(mKeys, mSize, key);
+    }
+
+    // by identity, as on the device
+    public int indexOfValue(E value) {
+        for ( int i = 0; i < mSize; i++ ) {
+            if ( mValues[i] == value ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        for ( int i = 0; i < mSize; i++ ) {
+            mValues[i] = null;
+        }
+        mSize = 0;
+    }
+
+    static int binarySearch(int[] a, int size, int key) {
+        int lo = 0;
+        int hi = size - 1;
+        while ( lo <= hi ) {
+            final int mid = (lo + hi) >>> 1;
+            final int v = a[mid];
+            if ( v < key ) {
+                lo = mid + 1;
+            } else if ( v > key ) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return ~lo;
+    }
+}
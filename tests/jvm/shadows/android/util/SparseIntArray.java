@@ -0,0 +1,106 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.util;
+
+public class SparseIntArray implements Cloneable {
+    private int[] mKeys;
+    private int[] mValues;
+    private int mSize;
+
+    public SparseIntArray() {
+        this(10);
+    }
+
+    public SparseIntArray(int capacity) {
+        mKeys = new int[Math.max(capacity, 1)];
+        mValues = new int[Math.max(capacity, 1)];
+    }
+
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    public int get(int key, int valueIfKeyNotFound) {
+        final int i = SparseArray.binarySearch(mKeys, mSize, key);
+        return i < 0 ? valueIfKeyNotFound : mValues[i];
+    }
+
+    public void delete(int key) {
+        final int i = SparseArray.binarySearch(mKeys, mSize, key);
+        if ( i >= 0 ) {
+            System.arraycopy(mKeys, i + 1, mKeys, i, mSize - i - 1);
+            System.arraycopy(mValues, i + 1, mValues, i, mSize - i - 1);
+            mSize--;
+        }
+    }
+
+    public void put(int key, int value) {
+        int i = SparseArray.binarySearch(mKeys, mSize, key);
+        if ( i >= 0 ) {
+            mValues[i] = value;
+        } else {
+            i = ~i;
+            if ( mSize == mKeys.length ) {
+                final int[] nk = new int[mSize * 2];
+                final int[] nv = new int[mSize * 2];
+                System.arraycopy(mKeys, 0, nk, 0, mSize);
+                System.arraycopy(mValues, 0, nv, 0, mSize);
+                mKeys = nk;
+                mValues = nv;
+            }
+            System.arraycopy(mKeys, i, mKeys, i + 1, mSize - i);
+            System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+            mKeys[i] = key;
+            mValues[i] = value;
+            mSize++;
+        }
+    }
+
+    public void append(int key, int value) {
+        put(key, value);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    public int indexOfKey(int key) {
+        return SparseArray.binarySearch(mKeys, mSize, key);
+    }
+
+    public int indexOfValue(int value) {
+        for ( int i = 0; i < mSize; i++ ) {
+            if ( mValues[i] == value ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+/**
+  *
+  * Callbacks for the next frame. Nothing runs them on its own; a
+  * ViewRootImpl frame does, after the due messages and before the
+  * traversal, which is the order the device uses.
+  *
+  */
+public final class Choreographer {
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final Choreographer sInstance = new Choreographer();
+
+    // callbacks posted while a frame runs wait for the next one
+    private Object[] mCallbacks = new Object[8];
+    private int mCount;
+    private Object[] mRunning = new Object[8];
+
+    private Choreographer() {
+    }
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    public void postFrameCallback(FrameCallback cb) {
+        add(cb);
+    }
+
+    public void removeFrameCallback(FrameCallback cb) {
+        remove(cb);
+    }
+
+    void postAnimationRunnable(Runnable r) {
+        add(r);
+    }
+
+    void removeAnimationRunnable(Runnable r) {
+        remove(r);
+    }
+
+    private void add(Object cb) {
+        if ( mCount == mCallbacks.length ) {
+            final Object[] grown = new Object[mCount * 2];
+            System.arraycopy(mCallbacks, 0, grown, 0, mCount);
+            mCallbacks = grown;
+        }
+        mCallbacks[mCount++] = cb;
+    }
+
+    private void remove(Object cb) {
+        int j = 0;
+        for ( int i = 0; i < mCount; i++ ) {
+            if ( mCallbacks[i] != cb ) {
+                mCallbacks[j++] = mCallbacks[i];
+            }
+        }
+        for ( int i = j; i < mCount; i++ ) {
+            mCallbacks[i] = null;
+        }
+        mCount = j;
+    }
+
+    // not on the device
+
+    public boolean hasCallbacks() {
+        return mCount > 0;
+    }
+
+    public void doFrame(long frameTimeNanos) {
+        final int n = mCount;
+        final Object[] running = mCallbacks;
+        mCallbacks = mRunning;
+        mRunning = running;
+        mCount = 0;
+        for ( int i = 0; i < n; i++ ) {
+            final Object cb = running[i];
+            running[i] = null;
+            if ( cb instanceof Runnable ) {
+                ((Runnable) cb).run();
+            } else {
+                ((FrameCallback) cb).doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    public void clear() {
+        for ( int i = 0; i < mCount; i++ ) {
+            mCallbacks[i] = null;
+        }
+        mCount = 0;
+    }
+}
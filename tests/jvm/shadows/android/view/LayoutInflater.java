@@ -0,0 +1,55 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+import android.content.Context;
+
+/**
+  *
+  * There are no layout resources off the device, so inflating one
+  * fails; adapters under test build their views in code.
+  *
+  */
+public class LayoutInflater {
+    private final Context mContext;
+
+    protected LayoutInflater(Context ctx) {
+        mContext = ctx;
+    }
+
+    public static LayoutInflater from(Context ctx) {
+        return new LayoutInflater(ctx);
+    }
+
+    public LayoutInflater cloneInContext(Context ctx) {
+        return new LayoutInflater(ctx);
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public View inflate(int resource, ViewGroup root) {
+        return inflate(resource, root, null != root);
+    }
+
+    public View inflate(int resource, ViewGroup root, boolean attachToRoot) {
+        throw new UnsupportedOperationException("no layout resources off the device: 0x"
+                                                + Integer.toHexString(resource));
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+/**
+  *
+  * A single pointer MotionEvent with batched history, pooled the way
+  * the device pools them.
+  *
+  */
+public final class MotionEvent {
+    public static final int ACTION_MASK = 0xff;
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_OUTSIDE = 4;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+    public static final int ACTION_POINTER_INDEX_MASK = 0xff00;
+    public static final int ACTION_POINTER_INDEX_SHIFT = 8;
+
+    private static final int MAX_RECYCLED = 10;
+    private static MotionEvent sRecycled;
+    private static int sRecycledCount;
+
+    private MotionEvent mNext;
+    private long mDownTime;
+    private long mEventTime;
+    private int mAction;
+    private float mX;
+    private float mY;
+    private float mRawOffsetX;
+    private float mRawOffsetY;
+    private int mMetaState;
+    private long[] mHistoryTimes = new long[8];
+    private float[] mHistoryX = new float[8];
+    private float[] mHistoryY = new float[8];
+    private int mHistorySize;
+
+    private MotionEvent() {
+    }
+
+    private static MotionEvent obtain() {
+        MotionEvent rv = sRecycled;
+        if ( null == rv ) {
+            rv = new MotionEvent();
+        } else {
+            sRecycled = rv.mNext;
+            sRecycledCount--;
+            rv.mNext = null;
+        }
+        return rv;
+    }
+
+    public static MotionEvent obtain(long downTime, long eventTime, int action, float x, float y, int metaState) {
+        final MotionEvent rv = obtain();
+        rv.mDownTime = downTime;
+        rv.mEventTime = eventTime;
+        rv.mAction = action;
+        rv.mX = x;
+        rv.mY = y;
+        rv.mRawOffsetX = 0;
+        rv.mRawOffsetY = 0;
+        rv.mMetaState = metaState;
+        rv.mHistorySize = 0;
+        return rv;
+    }
+
+    public static MotionEvent obtain(MotionEvent o) {
+        final MotionEvent rv = obtain(o.mDownTime, o.mEventTime, o.mAction, o.mX, o.mY, o.mMetaState);
+        rv.mRawOffsetX = o.mRawOffsetX;
+        rv.mRawOffsetY = o.mRawOffsetY;
+        for ( int h = 0; h < o.mHistorySize; h++ ) {
+            rv.pushHistory(o.mHistoryTimes[h], o.mHistoryX[h], o.mHistoryY[h]);
+        }
+        return rv;
+    }
+
+    public void recycle() {
+        if ( sRecycledCount < MAX_RECYCLED ) {
+            mNext = sRecycled;
+            sRecycled = this;
+            sRecycledCount++;
+        }
+    }
+
+    // the current sample becomes the newest historical one
+    public void addBatch(long eventTime, float x, float y, float pressure, float size, int metaState) {
+        pushHistory(mEventTime, mX, mY);
+        mEventTime = eventTime;
+        mX = x;
+        mY = y;
+        mMetaState = metaState;
+    }
+
+    private void pushHistory(long t, float x, float y) {
+        if ( mHistorySize == mHistoryTimes.length ) {
+            final int n = mHistorySize * 2;
+            final long[] times = new long[n];
+            final float[] xs = new float[n];
+            final float[] ys = new float[n];
+            System.arraycopy(mHistoryTimes, 0, times, 0, mHistorySize);
+            System.arraycopy(mHistoryX, 0, xs, 0, mHistorySize);
+            System.arraycopy(mHistoryY, 0, ys, 0, mHistorySize);
+            mHistoryTimes = times;
+            mHistoryX = xs;
+            mHistoryY = ys;
+        }
+        mHistoryTimes[mHistorySize] = t;
+        mHistoryX[mHistorySize] = x;
+        mHistoryY[mHistorySize] = y;
+        mHistorySize++;
+    }
+
+    public int getAction() {
+        return mAction;
+    }
+
+    public int getActionMasked() {
+        return mAction & ACTION_MASK;
+    }
+
+    public int getActionIndex() {
+        return (mAction & ACTION_POINTER_INDEX_MASK) >> ACTION_POINTER_INDEX_SHIFT;
+    }
+
+    public void setAction(int action) {
+        mAction = action;
+    }
+
+    public long getDownTime() {
+        return mDownTime;
+    }
+
+    public long getEventTime() {
+        return mEventTime;
+    }
+
+    public int getMetaState() {
+        return mMetaState;
+    }
+
+    public int getPointerCount() {
+        return 1;
+    }
+
+    public int getPointerId(int pointerIndex) {
+        return 0;
+    }
+
+    public int findPointerIndex(int pointerId) {
+        return 0 == pointerId ? 0 : -1;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public float getX(int pointerIndex) {
+        return mX;
+    }
+
+    public float getY(int pointerIndex) {
+        return mY;
+    }
+
+    public float getRawX() {
+        return mX - mRawOffsetX;
+    }
+
+    public float getRawY() {
+        return mY - mRawOffsetY;
+    }
+
+    public int getHistorySize() {
+        return mHistorySize;
+    }
+
+    public long getHistoricalEventTime(int pos) {
+        return mHistoryTimes[pos];
+    }
+
+    public float getHistoricalX(int pos) {
+        return mHistoryX[pos];
+    }
+
+    public float getHistoricalY(int pos) {
+        return mHistoryY[pos];
+    }
+
+    public void setLocation(float x, float y) {
+        offsetLocation(x - mX, y - mY);
+    }
+
+    public void offsetLocation(float dx, float dy) {
+        mX += dx;
+        mY += dy;
+        mRawOffsetX += dx;
+        mRawOffsetY += dy;
+        for ( int h = 0; h < mHistorySize; h++ ) {
+            mHistoryX[h] += dx;
+            mHistoryY[h] += dy;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MotionEvent { action=" + mAction + ", x=" + mX + ", y=" + mY
+            + ", eventTime=" + mEventTime + ", historySize=" + mHistorySize + " }";
+    }
+}
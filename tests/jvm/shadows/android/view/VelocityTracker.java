@@ -0,0 +1,121 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+/**
+  *
+  * Velocity from the oldest and newest samples of the last 100ms,
+  * which is exact for the constant speed swipes the tests script.
+  *
+  */
+public final class VelocityTracker {
+    private static final int HISTORY = 20;
+    private static final long HORIZON = 100;
+
+    private final long[] mTimes = new long[HISTORY];
+    private final float[] mXs = new float[HISTORY];
+    private final float[] mYs = new float[HISTORY];
+    private int mIndex;
+    private int mCount;
+    private float mXVelocity;
+    private float mYVelocity;
+
+    private VelocityTracker() {
+    }
+
+    public static VelocityTracker obtain() {
+        return new VelocityTracker();
+    }
+
+    public void recycle() {
+        clear();
+    }
+
+    public void clear() {
+        mCount = 0;
+        mIndex = 0;
+        mXVelocity = 0;
+        mYVelocity = 0;
+    }
+
+    public void addMovement(MotionEvent e) {
+        if ( MotionEvent.ACTION_DOWN == e.getActionMasked() ) {
+            clear();
+        }
+        final int n = e.getHistorySize();
+        for ( int h = 0; h < n; h++ ) {
+            add(e.getHistoricalEventTime(h), e.getHistoricalX(h), e.getHistoricalY(h));
+        }
+        add(e.getEventTime(), e.getX(), e.getY());
+    }
+
+    private void add(long t, float x, float y) {
+        mTimes[mIndex] = t;
+        mXs[mIndex] = x;
+        mYs[mIndex] = y;
+        mIndex = (mIndex + 1) % HISTORY;
+        if ( mCount < HISTORY ) {
+            mCount++;
+        }
+    }
+
+    public void computeCurrentVelocity(int units) {
+        computeCurrentVelocity(units, Float.MAX_VALUE);
+    }
+
+    public void computeCurrentVelocity(int units, float maxVelocity) {
+        mXVelocity = 0;
+        mYVelocity = 0;
+        if ( mCount > 1 ) {
+            final int newest = (mIndex + HISTORY - 1) % HISTORY;
+            int oldest = newest;
+            for ( int i = 1; i < mCount; i++ ) {
+                final int j = (newest + HISTORY - i) % HISTORY;
+                if ( mTimes[newest] - mTimes[j] > HORIZON ) {
+                    break;
+                }
+                oldest = j;
+            }
+            final long dt = mTimes[newest] - mTimes[oldest];
+            if ( dt > 0 ) {
+                mXVelocity = clamp((mXs[newest] - mXs[oldest]) * units / dt, maxVelocity);
+                mYVelocity = clamp((mYs[newest] - mYs[oldest]) * units / dt, maxVelocity);
+            }
+        }
+    }
+
+    private static float clamp(float v, float max) {
+        return Math.max(-max, Math.min(max, v));
+    }
+
+    public float getXVelocity() {
+        return mXVelocity;
+    }
+
+    public float getYVelocity() {
+        return mYVelocity;
+    }
+
+    public float getXVelocity(int id) {
+        return mXVelocity;
+    }
+
+    public float getYVelocity(int id) {
+        return mYVelocity;
+    }
+}
@@ -0,0 +1,860 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.animation.AnimationUtils;
+
+/**
+  *
+  * Enough of View to measure, lay out, draw and touch a hierarchy the
+  * way the device does, minus the pixels. measure() only calls
+  * onMeasure for a forced layout or new specs, layout() only calls
+  * onLayout for a new frame or a new measurement, and invalidations
+  * and layout requests climb to the ViewRootImpl, which runs frames.
+  * Each view counts the passes made over it, which the device does
+  * not.
+  *
+  */
+public class View {
+    public static final int NO_ID = -1;
+
+    public static final int VISIBLE = 0;
+    public static final int INVISIBLE = 4;
+    public static final int GONE = 8;
+
+    public static final int FOCUS_BACKWARD = 1;
+    public static final int FOCUS_FORWARD = 2;
+    public static final int FOCUS_LEFT = 17;
+    public static final int FOCUS_UP = 33;
+    public static final int FOCUS_RIGHT = 66;
+    public static final int FOCUS_DOWN = 130;
+
+    public static final int LAYER_TYPE_NONE = 0;
+    public static final int LAYER_TYPE_SOFTWARE = 1;
+    public static final int LAYER_TYPE_HARDWARE = 2;
+
+    public static final int MEASURED_SIZE_MASK = 0x00ffffff;
+    public static final int MEASURED_STATE_MASK = 0xff000000;
+    public static final int MEASURED_STATE_TOO_SMALL = 0x01000000;
+
+    public static class MeasureSpec {
+        private static final int MODE_SHIFT = 30;
+        private static final int MODE_MASK = 0x3 << MODE_SHIFT;
+
+        public static final int UNSPECIFIED = 0;
+        public static final int EXACTLY = 1 << MODE_SHIFT;
+        public static final int AT_MOST = 2 << MODE_SHIFT;
+
+        public static int makeMeasureSpec(int size, int mode) {
+            return (size & ~MODE_MASK) | (mode & MODE_MASK);
+        }
+
+        public static int getMode(int spec) {
+            return spec & MODE_MASK;
+        }
+
+        public static int getSize(int spec) {
+            return spec & ~MODE_MASK;
+        }
+    }
+
+    public interface OnClickListener {
+        void onClick(View v);
+    }
+
+    public interface OnTouchListener {
+        boolean onTouch(View v, MotionEvent e);
+    }
+
+    private static final IBinder sWindowToken = new IBinder() {
+    };
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    private static boolean sHardwareAccelerated;
+
+    private final Context mContext;
+    ViewParent mParent;
+    boolean mAttached;
+    private ViewGroup.LayoutParams mLayoutParams;
+    private int mId = NO_ID;
+    private Object mTag;
+    private SparseArray<Object> mKeyedTags;
+
+    int mLeft;
+    int mTop;
+    int mRight;
+    int mBottom;
+    private int mMeasuredWidth;
+    private int mMeasuredHeight;
+    private boolean mMeasuredSet;
+    private int mOldWidthSpec = Integer.MIN_VALUE;
+    private int mOldHeightSpec = Integer.MIN_VALUE;
+    private boolean mForceLayout;
+    private boolean mLayoutRequired;
+    boolean mDirty = true;
+
+    int mScrollX;
+    int mScrollY;
+    float mTranslationX;
+    float mTranslationY;
+    private float mAlpha = 1;
+    private float mScaleX = 1;
+    private float mScaleY = 1;
+    private int mVisibility = VISIBLE;
+    private int mLayerType = LAYER_TYPE_NONE;
+    private boolean mDrawingCacheEnabled;
+    private Bitmap mDrawingCache;
+    private int mBackgroundColor;
+    private boolean mWillNotDraw;
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mPaddingRight;
+    private int mPaddingBottom;
+    private int mMinWidth;
+    private int mMinHeight;
+    private boolean mFocusable;
+    boolean mFocused;
+    private boolean mClickable;
+    private OnClickListener mOnClickListener;
+    private OnTouchListener mOnTouchListener;
+
+    private int mMeasureCount;
+    private int mLayoutCount;
+    private int mDrawCount;
+    private int mInvalidateCount;
+    private int mDrawingCacheEnables;
+    private int mLayerBuilds;
+
+    public View(Context ctx) {
+        mContext = ctx;
+    }
+
+    public View(Context ctx, AttributeSet as) {
+        this(ctx);
+    }
+
+    public View(Context ctx, AttributeSet as, int defStyle) {
+        this(ctx);
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public Resources getResources() {
+        return mContext.getResources();
+    }
+
+    public final ViewParent getParent() {
+        return mParent;
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams p) {
+        if ( null == p ) {
+            throw new NullPointerException("Layout parameters cannot be null");
+        }
+        mLayoutParams = p;
+        requestLayout();
+    }
+
+    void assignLayoutParams(ViewGroup.LayoutParams p) {
+        mLayoutParams = p;
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    public void setId(int id) {
+        mId = id;
+    }
+
+    public Object getTag() {
+        return mTag;
+    }
+
+    public void setTag(Object tag) {
+        mTag = tag;
+    }
+
+    public Object getTag(int key) {
+        return null == mKeyedTags ? null : mKeyedTags.get(key);
+    }
+
+    public void setTag(int key, Object tag) {
+        if ( null == mKeyedTags ) {
+            mKeyedTags = new SparseArray<Object>(2);
+        }
+        mKeyedTags.put(key, tag);
+    }
+
+    // measure
+
+    public final void measure(int widthMeasureSpec, int heightMeasureSpec) {
+        if ( mForceLayout
+             || widthMeasureSpec != mOldWidthSpec
+             || heightMeasureSpec != mOldHeightSpec ) {
+            mMeasuredSet = false;
+            onMeasure(widthMeasureSpec, heightMeasureSpec);
+            if ( !mMeasuredSet ) {
+                throw new IllegalStateException(getClass().getName()
+                        + "#onMeasure() did not set the measured dimension by calling setMeasuredDimension()");
+            }
+            mLayoutRequired = true;
+        }
+        mMeasureCount++;
+        mOldWidthSpec = widthMeasureSpec;
+        mOldHeightSpec = heightMeasureSpec;
+    }
+
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                             getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec));
+    }
+
+    protected final void setMeasuredDimension(int w, int h) {
+        mMeasuredWidth = w;
+        mMeasuredHeight = h;
+        mMeasuredSet = true;
+    }
+
+    public final int getMeasuredWidth() {
+        return mMeasuredWidth & MEASURED_SIZE_MASK;
+    }
+
+    public final int getMeasuredHeight() {
+        return mMeasuredHeight & MEASURED_SIZE_MASK;
+    }
+
+    public static int getDefaultSize(int size, int measureSpec) {
+        int rv = size;
+        final int mode = MeasureSpec.getMode(measureSpec);
+        if ( MeasureSpec.AT_MOST == mode || MeasureSpec.EXACTLY == mode ) {
+            rv = MeasureSpec.getSize(measureSpec);
+        }
+        return rv;
+    }
+
+    public static int resolveSize(int size, int measureSpec) {
+        int rv = size;
+        final int mode = MeasureSpec.getMode(measureSpec);
+        final int specSize = MeasureSpec.getSize(measureSpec);
+        if ( MeasureSpec.AT_MOST == mode ) {
+            rv = Math.min(size, specSize);
+        } else if ( MeasureSpec.EXACTLY == mode ) {
+            rv = specSize;
+        }
+        return rv;
+    }
+
+    protected int getSuggestedMinimumWidth() {
+        return mMinWidth;
+    }
+
+    protected int getSuggestedMinimumHeight() {
+        return mMinHeight;
+    }
+
+    public void setMinimumWidth(int w) {
+        mMinWidth = w;
+        requestLayout();
+    }
+
+    public void setMinimumHeight(int h) {
+        mMinHeight = h;
+        requestLayout();
+    }
+
+    // layout
+
+    public void layout(int l, int t, int r, int b) {
+        final boolean changed = setFrame(l, t, r, b);
+        if ( changed || mLayoutRequired ) {
+            onLayout(changed, l, t, r, b);
+            mLayoutRequired = false;
+        }
+        mForceLayout = false;
+        mLayoutCount++;
+    }
+
+    private boolean setFrame(int l, int t, int r, int b) {
+        boolean rv = false;
+        if ( mLeft != l || mRight != r || mTop != t || mBottom != b ) {
+            final int ow = mRight - mLeft;
+            final int oh = mBottom - mTop;
+            mLeft = l;
+            mTop = t;
+            mRight = r;
+            mBottom = b;
+            if ( r - l != ow || b - t != oh ) {
+                onSizeChanged(r - l, b - t, ow, oh);
+            }
+            invalidate();
+            rv = true;
+        }
+        return rv;
+    }
+
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    }
+
+    protected void onSizeChanged(int w, int h, int ow, int oh) {
+    }
+
+    public void requestLayout() {
+        mForceLayout = true;
+        if ( null != mParent && !mParent.isLayoutRequested() ) {
+            mParent.requestLayout();
+        }
+    }
+
+    public void forceLayout() {
+        mForceLayout = true;
+    }
+
+    public boolean isLayoutRequested() {
+        return mForceLayout;
+    }
+
+    public final int getLeft() {
+        return mLeft;
+    }
+
+    public final int getTop() {
+        return mTop;
+    }
+
+    public final int getRight() {
+        return mRight;
+    }
+
+    public final int getBottom() {
+        return mBottom;
+    }
+
+    public final int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public final int getHeight() {
+        return mBottom - mTop;
+    }
+
+    public int getPaddingLeft() {
+        return mPaddingLeft;
+    }
+
+    public int getPaddingTop() {
+        return mPaddingTop;
+    }
+
+    public int getPaddingRight() {
+        return mPaddingRight;
+    }
+
+    public int getPaddingBottom() {
+        return mPaddingBottom;
+    }
+
+    public void setPadding(int l, int t, int r, int b) {
+        mPaddingLeft = l;
+        mPaddingTop = t;
+        mPaddingRight = r;
+        mPaddingBottom = b;
+        requestLayout();
+        invalidate();
+    }
+
+    // scrolling and transforms
+
+    public final int getScrollX() {
+        return mScrollX;
+    }
+
+    public final int getScrollY() {
+        return mScrollY;
+    }
+
+    public void scrollTo(int x, int y) {
+        if ( mScrollX != x || mScrollY != y ) {
+            final int ox = mScrollX;
+            final int oy = mScrollY;
+            mScrollX = x;
+            mScrollY = y;
+            onScrollChanged(x, y, ox, oy);
+            invalidate();
+        }
+    }
+
+    public void scrollBy(int x, int y) {
+        scrollTo(mScrollX + x, mScrollY + y);
+    }
+
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+    }
+
+    public void computeScroll() {
+    }
+
+    public float getTranslationX() {
+        return mTranslationX;
+    }
+
+    public void setTranslationX(float x) {
+        if ( x != mTranslationX ) {
+            invalidateParent();
+            mTranslationX = x;
+            invalidateParent();
+        }
+    }
+
+    public float getTranslationY() {
+        return mTranslationY;
+    }
+
+    public void setTranslationY(float y) {
+        if ( y != mTranslationY ) {
+            invalidateParent();
+            mTranslationY = y;
+            invalidateParent();
+        }
+    }
+
+    public float getAlpha() {
+        return mAlpha;
+    }
+
+    public void setAlpha(float a) {
+        if ( a != mAlpha ) {
+            mAlpha = a;
+            invalidateParent();
+        }
+    }
+
+    public float getScaleX() {
+        return mScaleX;
+    }
+
+    public void setScaleX(float s) {
+        if ( s != mScaleX ) {
+            mScaleX = s;
+            invalidateParent();
+        }
+    }
+
+    public float getScaleY() {
+        return mScaleY;
+    }
+
+    public void setScaleY(float s) {
+        if ( s != mScaleY ) {
+            mScaleY = s;
+            invalidateParent();
+        }
+    }
+
+    // a property of the view's own drawing changed; its parent has to
+    // draw it again, but the view's content is unchanged
+    private void invalidateParent() {
+        if ( null != mParent ) {
+            mParent.invalidateChild(this, null);
+        }
+    }
+
+    // visibility
+
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    public void setVisibility(int v) {
+        if ( v != mVisibility ) {
+            final boolean gone = GONE == v || GONE == mVisibility;
+            mVisibility = v;
+            if ( gone ) {
+                requestLayout();
+            }
+            invalidate();
+            invalidateParent();
+        }
+    }
+
+    public boolean isShown() {
+        View v = this;
+        boolean rv = true;
+        while ( rv ) {
+            if ( VISIBLE != v.mVisibility ) {
+                rv = false;
+            } else if ( v.mParent instanceof View ) {
+                v = (View) v.mParent;
+            } else {
+                rv = v.mAttached;
+                break;
+            }
+        }
+        return rv;
+    }
+
+    public boolean getGlobalVisibleRect(Rect r) {
+        r.set(mLeft, mTop, mRight, mBottom);
+        return isShown() && !r.isEmpty();
+    }
+
+    // drawing
+
+    public void invalidate() {
+        mDirty = true;
+        mInvalidateCount++;
+        invalidateParent();
+    }
+
+    public void invalidate(int l, int t, int r, int b) {
+        invalidate();
+    }
+
+    public void invalidate(Rect r) {
+        invalidate();
+    }
+
+    public void postInvalidate() {
+        invalidate();
+    }
+
+    public void postInvalidateOnAnimation() {
+        invalidate();
+    }
+
+    public boolean isDirty() {
+        return mDirty;
+    }
+
+    public void draw(Canvas can) {
+        mDirty = false;
+        mDrawCount++;
+        if ( 0 != mBackgroundColor ) {
+            can.drawColor(mBackgroundColor);
+        }
+        if ( !mWillNotDraw ) {
+            onDraw(can);
+        }
+        dispatchDraw(can);
+    }
+
+    protected void onDraw(Canvas can) {
+    }
+
+    protected void dispatchDraw(Canvas can) {
+    }
+
+    public long getDrawingTime() {
+        return mAttached ? AnimationUtils.currentAnimationTimeMillis() : 0;
+    }
+
+    public void setWillNotDraw(boolean willNotDraw) {
+        mWillNotDraw = willNotDraw;
+    }
+
+    public boolean willNotDraw() {
+        return mWillNotDraw;
+    }
+
+    public void setBackgroundColor(int color) {
+        mBackgroundColor = color;
+        invalidate();
+    }
+
+    public int getSolidColor() {
+        return 0;
+    }
+
+    public void setDrawingCacheEnabled(boolean enabled) {
+        if ( enabled && !mDrawingCacheEnabled ) {
+            mDrawingCacheEnables++;
+        }
+        mDrawingCacheEnabled = enabled;
+        if ( !enabled ) {
+            destroyDrawingCache();
+        }
+    }
+
+    public boolean isDrawingCacheEnabled() {
+        return mDrawingCacheEnabled;
+    }
+
+    public void buildDrawingCache() {
+        if ( null == mDrawingCache && getWidth() > 0 && getHeight() > 0 ) {
+            mDrawingCache = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            draw(new Canvas(mDrawingCache));
+        }
+    }
+
+    public Bitmap getDrawingCache() {
+        if ( mDrawingCacheEnabled ) {
+            buildDrawingCache();
+        }
+        return mDrawingCache;
+    }
+
+    public void destroyDrawingCache() {
+        if ( null != mDrawingCache ) {
+            mDrawingCache.recycle();
+            mDrawingCache = null;
+        }
+    }
+
+    public void setLayerType(int type, Paint p) {
+        if ( type != mLayerType ) {
+            mLayerType = type;
+            invalidateParent();
+        }
+    }
+
+    public int getLayerType() {
+        return mLayerType;
+    }
+
+    public void buildLayer() {
+        if ( !mAttached ) {
+            throw new IllegalStateException("This view must be attached to a window first");
+        }
+        if ( LAYER_TYPE_NONE != mLayerType ) {
+            mLayerBuilds++;
+        }
+    }
+
+    public boolean isHardwareAccelerated() {
+        return sHardwareAccelerated && mAttached;
+    }
+
+    // not on the device: whether attached views report hardware
+    // acceleration
+    public static void setHardwareAccelerated(boolean ha) {
+        sHardwareAccelerated = ha;
+    }
+
+    // window
+
+    public IBinder getWindowToken() {
+        return mAttached ? sWindowToken : null;
+    }
+
+    public Handler getHandler() {
+        return mAttached ? sHandler : null;
+    }
+
+    public boolean hasWindowFocus() {
+        return mAttached;
+    }
+
+    public final boolean isInEditMode() {
+        return false;
+    }
+
+    void dispatchAttachedToWindow() {
+        mAttached = true;
+        onAttachedToWindow();
+    }
+
+    void dispatchDetachedFromWindow() {
+        onDetachedFromWindow();
+        mAttached = false;
+    }
+
+    protected void onAttachedToWindow() {
+    }
+
+    protected void onDetachedFromWindow() {
+    }
+
+    public boolean post(Runnable r) {
+        return sHandler.post(r);
+    }
+
+    public boolean postDelayed(Runnable r, long delayMillis) {
+        return sHandler.postDelayed(r, delayMillis);
+    }
+
+    public void postOnAnimation(Runnable r) {
+        Choreographer.getInstance().postAnimationRunnable(r);
+    }
+
+    public boolean removeCallbacks(Runnable r) {
+        sHandler.removeCallbacks(r);
+        Choreographer.getInstance().removeAnimationRunnable(r);
+        return true;
+    }
+
+    public void setHasTransientState(boolean hasTransientState) {
+    }
+
+    // focus
+
+    public void setFocusable(boolean focusable) {
+        mFocusable = focusable;
+    }
+
+    public boolean isFocusable() {
+        return mFocusable;
+    }
+
+    public boolean isFocused() {
+        return mFocused;
+    }
+
+    public boolean hasFocus() {
+        return mFocused;
+    }
+
+    public final boolean requestFocus() {
+        return requestFocus(FOCUS_DOWN);
+    }
+
+    public final boolean requestFocus(int direction) {
+        return requestFocus(direction, null);
+    }
+
+    public boolean requestFocus(int direction, Rect previouslyFocusedRect) {
+        boolean rv = false;
+        if ( mFocusable && VISIBLE == mVisibility ) {
+            if ( !mFocused ) {
+                mFocused = true;
+                if ( null != mParent ) {
+                    mParent.requestChildFocus(this, this);
+                }
+            }
+            rv = true;
+        }
+        return rv;
+    }
+
+    public void clearFocus() {
+        if ( mFocused ) {
+            mFocused = false;
+            if ( null != mParent ) {
+                mParent.clearChildFocus(this);
+            }
+        }
+    }
+
+    public View findFocus() {
+        return mFocused ? this : null;
+    }
+
+    public boolean dispatchUnhandledMove(View focused, int direction) {
+        return false;
+    }
+
+    public View findViewById(int id) {
+        return findViewTraversal(id);
+    }
+
+    View findViewTraversal(int id) {
+        return id == mId ? this : null;
+    }
+
+    // touch
+
+    public void setOnClickListener(OnClickListener l) {
+        mClickable = true;
+        mOnClickListener = l;
+    }
+
+    public void setOnTouchListener(OnTouchListener l) {
+        mOnTouchListener = l;
+    }
+
+    public void setClickable(boolean clickable) {
+        mClickable = clickable;
+    }
+
+    public boolean isClickable() {
+        return mClickable;
+    }
+
+    public boolean dispatchTouchEvent(MotionEvent e) {
+        boolean rv = false;
+        if ( null != mOnTouchListener && mOnTouchListener.onTouch(this, e) ) {
+            rv = true;
+        } else {
+            rv = onTouchEvent(e);
+        }
+        return rv;
+    }
+
+    // clicks on up, without the tap timeouts of the device
+    public boolean onTouchEvent(MotionEvent e) {
+        if ( mClickable && MotionEvent.ACTION_UP == e.getActionMasked() && null != mOnClickListener ) {
+            mOnClickListener.onClick(this);
+        }
+        return mClickable;
+    }
+
+    // counts; not on the device
+
+    // measure() calls, whether or not they reached onMeasure
+    public int getMeasureCount() {
+        return mMeasureCount;
+    }
+
+    // layout() calls
+    public int getLayoutCount() {
+        return mLayoutCount;
+    }
+
+    // draw() calls, by a parent or into a bitmap
+    public int getDrawCount() {
+        return mDrawCount;
+    }
+
+    public int getInvalidateCount() {
+        return mInvalidateCount;
+    }
+
+    // setDrawingCacheEnabled(true) calls on a view without one
+    public int getDrawingCacheEnableCount() {
+        return mDrawingCacheEnables;
+    }
+
+    // buildLayer() calls that had a layer to build
+    public int getLayerBuildCount() {
+        return mLayerBuilds;
+    }
+
+    public void resetCounts() {
+        mMeasureCount = 0;
+        mLayoutCount = 0;
+        mDrawCount = 0;
+        mInvalidateCount = 0;
+        mDrawingCacheEnables = 0;
+        mLayerBuilds = 0;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+import android.content.Context;
+
+/**
+  *
+  * The API 18 defaults, scaled by the display density.
+  *
+  */
+public class ViewConfiguration {
+    private static final int TOUCH_SLOP = 8;
+    private static final int PAGING_TOUCH_SLOP = TOUCH_SLOP * 2;
+    private static final int DOUBLE_TAP_SLOP = 100;
+    private static final int MINIMUM_FLING_VELOCITY = 50;
+    private static final int MAXIMUM_FLING_VELOCITY = 8000;
+    private static final int OVERSCROLL_DISTANCE = 0;
+    private static final int OVERFLING_DISTANCE = 6;
+
+    private final float mDensity;
+
+    private ViewConfiguration(float density) {
+        mDensity = density;
+    }
+
+    public static ViewConfiguration get(Context ctx) {
+        return new ViewConfiguration(ctx.getResources().getDisplayMetrics().density);
+    }
+
+    private int scale(int dp) {
+        return (int) (mDensity * dp + 0.5f);
+    }
+
+    public int getScaledTouchSlop() {
+        return scale(TOUCH_SLOP);
+    }
+
+    public int getScaledPagingTouchSlop() {
+        return scale(PAGING_TOUCH_SLOP);
+    }
+
+    public int getScaledDoubleTapSlop() {
+        return scale(DOUBLE_TAP_SLOP);
+    }
+
+    public int getScaledMinimumFlingVelocity() {
+        return scale(MINIMUM_FLING_VELOCITY);
+    }
+
+    public int getScaledMaximumFlingVelocity() {
+        return scale(MAXIMUM_FLING_VELOCITY);
+    }
+
+    public int getScaledOverscrollDistance() {
+        return scale(OVERSCROLL_DISTANCE);
+    }
+
+    public int getScaledOverflingDistance() {
+        return scale(OVERFLING_DISTANCE);
+    }
+
+    public static int getTapTimeout() {
+        return 180;
+    }
+
+    public static int getLongPressTimeout() {
+        return 500;
+    }
+
+    public static float getScrollFriction() {
+        return 0.015f;
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+
+/**
+  *
+  * Enough of ViewGroup for the hierarchies the tests build: children
+  * kept in an array, the device's touch target and intercept rules,
+  * drawChild translating by the child's position, translation and
+  * scroll, and the device's child measure specs.
+  *
+  */
+public abstract class ViewGroup extends View implements ViewParent {
+    public static class LayoutParams {
+        public static final int FILL_PARENT = -1;
+        public static final int MATCH_PARENT = -1;
+        public static final int WRAP_CONTENT = -2;
+
+        public int width;
+        public int height;
+
+        public LayoutParams(Context ctx, AttributeSet as) {
+            this(WRAP_CONTENT, WRAP_CONTENT);
+        }
+
+        public LayoutParams(int w, int h) {
+            width = w;
+            height = h;
+        }
+
+        public LayoutParams(LayoutParams source) {
+            width = source.width;
+            height = source.height;
+        }
+    }
+
+    public static class MarginLayoutParams extends LayoutParams {
+        public int leftMargin;
+        public int topMargin;
+        public int rightMargin;
+        public int bottomMargin;
+
+        public MarginLayoutParams(Context ctx, AttributeSet as) {
+            super(ctx, as);
+        }
+
+        public MarginLayoutParams(int w, int h) {
+            super(w, h);
+        }
+
+        public MarginLayoutParams(LayoutParams source) {
+            super(source);
+        }
+
+        public MarginLayoutParams(MarginLayoutParams source) {
+            super(source);
+            setMargins(source.leftMargin, source.topMargin, source.rightMargin, source.bottomMargin);
+        }
+
+        public void setMargins(int l, int t, int r, int b) {
+            leftMargin = l;
+            topMargin = t;
+            rightMargin = r;
+            bottomMargin = b;
+        }
+    }
+
+    public interface OnHierarchyChangeListener {
+        void onChildViewAdded(View parent, View child);
+
+        void onChildViewRemoved(View parent, View child);
+    }
+
+    private View[] mChildren = new View[12];
+    private int mChildrenCount;
+    private View mFocusedChild;
+    private View mTouchTarget;
+    private boolean mDisallowIntercept;
+    private int mDrawChildCount;
+    private OnHierarchyChangeListener mHierarchyListener;
+
+    public ViewGroup(Context ctx) {
+        super(ctx);
+    }
+
+    public ViewGroup(Context ctx, AttributeSet as) {
+        super(ctx, as);
+    }
+
+    public ViewGroup(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+    }
+
+    // children
+
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener l) {
+        mHierarchyListener = l;
+    }
+
+    public int getChildCount() {
+        return mChildrenCount;
+    }
+
+    public View getChildAt(int index) {
+        return index < 0 || index >= mChildrenCount ? null : mChildren[index];
+    }
+
+    public int indexOfChild(View child) {
+        int rv = -1;
+        for ( int i = 0; i < mChildrenCount; i++ ) {
+            if ( mChildren[i] == child ) {
+                rv = i;
+                break;
+            }
+        }
+        return rv;
+    }
+
+    public void addView(View child) {
+        addView(child, -1);
+    }
+
+    public void addView(View child, int index) {
+        LayoutParams lp = child.getLayoutParams();
+        if ( null == lp ) {
+            lp = generateDefaultLayoutParams();
+            if ( null == lp ) {
+                throw new IllegalArgumentException("generateDefaultLayoutParams() cannot return null");
+            }
+        }
+        addView(child, index, lp);
+    }
+
+    public void addView(View child, int w, int h) {
+        final LayoutParams lp = generateDefaultLayoutParams();
+        lp.width = w;
+        lp.height = h;
+        addView(child, -1, lp);
+    }
+
+    public void addView(View child, LayoutParams lp) {
+        addView(child, -1, lp);
+    }
+
+    public void addView(View child, int index, LayoutParams lp) {
+        requestLayout();
+        invalidate();
+        addViewInner(child, index, lp, false);
+    }
+
+    protected boolean addViewInLayout(View child, int index, LayoutParams lp) {
+        return addViewInLayout(child, index, lp, false);
+    }
+
+    protected boolean addViewInLayout(View child, int index, LayoutParams lp, boolean preventRequestLayout) {
+        child.mParent = null;
+        addViewInner(child, index, lp, preventRequestLayout);
+        return true;
+    }
+
+    private void addViewInner(View child, int index, LayoutParams lp, boolean preventRequestLayout) {
+        if ( null != child.getParent() ) {
+            throw new IllegalStateException("The specified child already has a parent. "
+                    + "You must call removeView() on the child's parent first.");
+        }
+        if ( !checkLayoutParams(lp) ) {
+            lp = generateLayoutParams(lp);
+        }
+        if ( preventRequestLayout ) {
+            child.assignLayoutParams(lp);
+        } else {
+            child.setLayoutParams(lp);
+        }
+        if ( index < 0 ) {
+            index = mChildrenCount;
+        }
+        if ( mChildrenCount == mChildren.length ) {
+            final View[] grown = new View[mChildrenCount * 2];
+            System.arraycopy(mChildren, 0, grown, 0, mChildrenCount);
+            mChildren = grown;
+        }
+        System.arraycopy(mChildren, index, mChildren, index + 1, mChildrenCount - index);
+        mChildren[index] = child;
+        mChildrenCount++;
+        child.mParent = this;
+        child.mDirty = true;
+        if ( mAttached ) {
+            child.dispatchAttachedToWindow();
+        }
+        if ( child.hasFocus() ) {
+            requestChildFocus(child, child.findFocus());
+        }
+        if ( null != mHierarchyListener ) {
+            mHierarchyListener.onChildViewAdded(this, child);
+        }
+    }
+
+    public void removeView(View child) {
+        final int i = indexOfChild(child);
+        if ( i >= 0 ) {
+            removeViewInternal(i);
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    public void removeViewInLayout(View child) {
+        final int i = indexOfChild(child);
+        if ( i >= 0 ) {
+            removeViewInternal(i);
+        }
+    }
+
+    public void removeViewAt(int index) {
+        removeViewInternal(index);
+        requestLayout();
+        invalidate();
+    }
+
+    public void removeAllViews() {
+        removeAllViewsInLayout();
+        requestLayout();
+        invalidate();
+    }
+
+    public void removeAllViewsInLayout() {
+        while ( mChildrenCount > 0 ) {
+            removeViewInternal(mChildrenCount - 1);
+        }
+    }
+
+    private void removeViewInternal(int index) {
+        final View child = mChildren[index];
+        if ( child == mFocusedChild ) {
+            child.clearFocus();
+            mFocusedChild = null;
+        }
+        if ( child == mTouchTarget ) {
+            mTouchTarget = null;
+        }
+        if ( mAttached ) {
+            child.dispatchDetachedFromWindow();
+        }
+        child.mParent = null;
+        System.arraycopy(mChildren, index + 1, mChildren, index, mChildrenCount - index - 1);
+        mChildrenCount--;
+        mChildren[mChildrenCount] = null;
+        invalidate();
+        if ( null != mHierarchyListener ) {
+            mHierarchyListener.onChildViewRemoved(this, child);
+        }
+    }
+
+    @Override
+    View findViewTraversal(int id) {
+        View rv = super.findViewTraversal(id);
+        for ( int i = 0; null == rv && i < mChildrenCount; i++ ) {
+            rv = mChildren[i].findViewTraversal(id);
+        }
+        return rv;
+    }
+
+    // layout params
+
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    public LayoutParams generateLayoutParams(AttributeSet as) {
+        return new LayoutParams(getContext(), as);
+    }
+
+    protected LayoutParams generateLayoutParams(LayoutParams p) {
+        return p;
+    }
+
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return null != p;
+    }
+
+    // measure and layout
+
+    protected void measureChildren(int widthMeasureSpec, int heightMeasureSpec) {
+        for ( int i = 0; i < mChildrenCount; i++ ) {
+            final View child = mChildren[i];
+            if ( GONE != child.getVisibility() ) {
+                measureChild(child, widthMeasureSpec, heightMeasureSpec);
+            }
+        }
+    }
+
+    protected void measureChild(View child, int parentWidthMeasureSpec, int parentHeightMeasureSpec) {
+        final LayoutParams lp = child.getLayoutParams();
+        child.measure(getChildMeasureSpec(parentWidthMeasureSpec, getPaddingLeft() + getPaddingRight(), lp.width),
+                      getChildMeasureSpec(parentHeightMeasureSpec, getPaddingTop() + getPaddingBottom(), lp.height));
+    }
+
+    protected void measureChildWithMargins(View child,
+                                           int parentWidthMeasureSpec, int widthUsed,
+                                           int parentHeightMeasureSpec, int heightUsed) {
+        final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+        child.measure(getChildMeasureSpec(parentWidthMeasureSpec,
+                                          getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin + widthUsed,
+                                          lp.width),
+                      getChildMeasureSpec(parentHeightMeasureSpec,
+                                          getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin + heightUsed,
+                                          lp.height));
+    }
+
+    public static int getChildMeasureSpec(int spec, int padding, int childDimension) {
+        final int specMode = MeasureSpec.getMode(spec);
+        final int size = Math.max(0, MeasureSpec.getSize(spec) - padding);
+        int resultSize = 0;
+        int resultMode = MeasureSpec.UNSPECIFIED;
+        if ( childDimension >= 0 ) {
+            resultSize = childDimension;
+            resultMode = MeasureSpec.EXACTLY;
+        } else if ( MeasureSpec.UNSPECIFIED == specMode ) {
+            resultSize = 0;
+            resultMode = MeasureSpec.UNSPECIFIED;
+        } else if ( LayoutParams.MATCH_PARENT == childDimension ) {
+            resultSize = size;
+            resultMode = specMode;
+        } else if ( LayoutParams.WRAP_CONTENT == childDimension ) {
+            resultSize = size;
+            resultMode = MeasureSpec.AT_MOST;
+        }
+        return MeasureSpec.makeMeasureSpec(resultSize, resultMode);
+    }
+
+    @Override
+    protected abstract void onLayout(boolean changed, int l, int t, int r, int b);
+
+    // drawing
+
+    @Override
+    protected void dispatchDraw(Canvas can) {
+        final long drawingTime = getDrawingTime();
+        for ( int i = 0; i < mChildrenCount; i++ ) {
+            final View child = mChildren[i];
+            if ( VISIBLE == child.getVisibility() ) {
+                drawChild(can, child, drawingTime);
+            }
+        }
+    }
+
+    protected boolean drawChild(Canvas can, View child, long drawingTime) {
+        mDrawChildCount++;
+        child.computeScroll();
+        final int sc = can.save();
+        can.translate(child.mLeft + child.mTranslationX - child.mScrollX,
+                      child.mTop + child.mTranslationY - child.mScrollY);
+        child.draw(can);
+        can.restoreToCount(sc);
+        return false;
+    }
+
+    @Override
+    public void invalidateChild(View child, Rect r) {
+        mDirty = true;
+        if ( null != mParent ) {
+            mParent.invalidateChild(this, r);
+        }
+    }
+
+    // window
+
+    @Override
+    void dispatchAttachedToWindow() {
+        super.dispatchAttachedToWindow();
+        for ( int i = 0; i < mChildrenCount; i++ ) {
+            mChildren[i].dispatchAttachedToWindow();
+        }
+    }
+
+    @Override
+    void dispatchDetachedFromWindow() {
+        for ( int i = 0; i < mChildrenCount; i++ ) {
+            mChildren[i].dispatchDetachedFromWindow();
+        }
+        super.dispatchDetachedFromWindow();
+    }
+
+    // focus
+
+    public View getFocusedChild() {
+        return mFocusedChild;
+    }
+
+    @Override
+    public boolean hasFocus() {
+        return mFocused || null != mFocusedChild;
+    }
+
+    @Override
+    public View findFocus() {
+        View rv = super.findFocus();
+        if ( null == rv && null != mFocusedChild ) {
+            rv = mFocusedChild.findFocus();
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean requestFocus(int direction, Rect previouslyFocusedRect) {
+        return onRequestFocusInDescendants(direction, previouslyFocusedRect)
+            || super.requestFocus(direction, previouslyFocusedRect);
+    }
+
+    protected boolean onRequestFocusInDescendants(int direction, Rect previouslyFocusedRect) {
+        boolean rv = false;
+        for ( int i = 0; !rv && i < mChildrenCount; i++ ) {
+            final View child = mChildren[i];
+            if ( VISIBLE == child.getVisibility() ) {
+                rv = child.requestFocus(direction, previouslyFocusedRect);
+            }
+        }
+        return rv;
+    }
+
+    @Override
+    public void requestChildFocus(View child, View focused) {
+        if ( mFocused ) {
+            mFocused = false;
+        }
+        if ( mFocusedChild != child ) {
+            if ( null != mFocusedChild ) {
+                mFocusedChild.clearFocus();
+            }
+            mFocusedChild = child;
+        }
+        if ( null != mParent ) {
+            mParent.requestChildFocus(this, focused);
+        }
+    }
+
+    @Override
+    public void clearChildFocus(View child) {
+        mFocusedChild = null;
+        if ( null != mParent ) {
+            mParent.clearChildFocus(this);
+        }
+    }
+
+    @Override
+    public void clearFocus() {
+        if ( null != mFocusedChild ) {
+            final View child = mFocusedChild;
+            mFocusedChild = null;
+            child.clearFocus();
+        }
+        super.clearFocus();
+    }
+
+    @Override
+    public boolean requestChildRectangleOnScreen(View child, Rect rectangle, boolean immediate) {
+        return false;
+    }
+
+    @Override
+    public boolean dispatchUnhandledMove(View focused, int direction) {
+        return null != mFocusedChild && mFocusedChild.dispatchUnhandledMove(focused, direction);
+    }
+
+    // touch
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent e) {
+        final int action = e.getActionMasked();
+        if ( MotionEvent.ACTION_DOWN == action ) {
+            mTouchTarget = null;
+            mDisallowIntercept = false;
+        }
+
+        boolean intercepted = false;
+        if ( MotionEvent.ACTION_DOWN == action || null != mTouchTarget ) {
+            if ( !mDisallowIntercept ) {
+                intercepted = onInterceptTouchEvent(e);
+            }
+        } else {
+            intercepted = true;
+        }
+
+        boolean rv = false;
+        boolean cancelled = false;
+        if ( !intercepted && MotionEvent.ACTION_DOWN == action ) {
+            for ( int i = mChildrenCount - 1; i >= 0; i-- ) {
+                final View child = mChildren[i];
+                if ( VISIBLE == child.getVisibility() && dispatchToChild(e, child, false) ) {
+                    mTouchTarget = child;
+                    rv = true;
+                    break;
+                }
+            }
+        } else if ( null != mTouchTarget ) {
+            // the target loses the gesture when this group takes it
+            final View target = mTouchTarget;
+            rv = dispatchToChild(e, target, intercepted);
+            if ( intercepted ) {
+                mTouchTarget = null;
+                cancelled = true;
+            }
+        }
+
+        if ( null == mTouchTarget && !rv && !cancelled ) {
+            rv = super.dispatchTouchEvent(e);
+        } else if ( cancelled ) {
+            rv = true;
+        }
+
+        if ( MotionEvent.ACTION_UP == action || MotionEvent.ACTION_CANCEL == action ) {
+            mTouchTarget = null;
+            mDisallowIntercept = false;
+        }
+        return rv;
+    }
+
+    private boolean dispatchToChild(MotionEvent e, View child, boolean cancel) {
+        final float dx = mScrollX - child.mLeft - child.mTranslationX;
+        final float dy = mScrollY - child.mTop - child.mTranslationY;
+        if ( !cancel && MotionEvent.ACTION_DOWN == e.getActionMasked() ) {
+            final float x = e.getX() + dx;
+            final float y = e.getY() + dy;
+            if ( x < 0 || y < 0 || x >= child.getWidth() || y >= child.getHeight() ) {
+                return false;
+            }
+        }
+        final int action = e.getAction();
+        if ( cancel ) {
+            e.setAction(MotionEvent.ACTION_CANCEL);
+        }
+        e.offsetLocation(dx, dy);
+        final boolean rv = child.dispatchTouchEvent(e);
+        e.offsetLocation(-dx, -dy);
+        e.setAction(action);
+        return rv;
+    }
+
+    public boolean onInterceptTouchEvent(MotionEvent e) {
+        return false;
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if ( disallowIntercept != mDisallowIntercept ) {
+            mDisallowIntercept = disallowIntercept;
+            if ( null != mParent ) {
+                mParent.requestDisallowInterceptTouchEvent(disallowIntercept);
+            }
+        }
+    }
+
+    // counts; not on the device
+
+    // drawChild() calls this group has made
+    public int getDrawChildCount() {
+        return mDrawChildCount;
+    }
+
+    @Override
+    public void resetCounts() {
+        super.resetCounts();
+        mDrawChildCount = 0;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.view;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+  *
+  * The window a test hierarchy lives in. Each frame() runs what the
+  * device runs on a vsync: the due messages, the Choreographer's
+  * callbacks, a traversal if layout was requested and a draw if
+  * anything was invalidated. As on the device, the root view is
+  * drawn but its computeScroll is not called, so the view under test
+  * should be a child of the root.
+  *
+  */
+public final class ViewRootImpl implements ViewParent {
+    public static final long FRAME_MILLIS = 16;
+
+    private final View mView;
+    private final int mWidth;
+    private final int mHeight;
+    private final Canvas mCanvas;
+    private boolean mLayoutRequested = true;
+    private boolean mDirty = true;
+    private boolean mDisallowIntercept;
+    private int mFrames;
+    private int mTraversals;
+    private int mDraws;
+
+    public ViewRootImpl(View view, int w, int h) {
+        if ( null != view.getParent() ) {
+            throw new IllegalStateException("The view already has a parent");
+        }
+        mView = view;
+        mWidth = w;
+        mHeight = h;
+        mCanvas = new Canvas(w, h);
+        view.mParent = this;
+        view.dispatchAttachedToWindow();
+    }
+
+    public View getView() {
+        return mView;
+    }
+
+    public Canvas getCanvas() {
+        return mCanvas;
+    }
+
+    public void detach() {
+        mView.dispatchDetachedFromWindow();
+        mView.mParent = null;
+    }
+
+    // one vsync; the clock advances a frame first
+    public void frame() {
+        frame(null);
+    }
+
+    // one vsync with an input event, delivered before the animation
+    // callbacks as on the device; the event should carry the time the
+    // frame will have
+    public void frame(MotionEvent input) {
+        SystemClock.advance(FRAME_MILLIS);
+        Looper.getMainLooper().getQueue().runDue();
+        if ( null != input ) {
+            dispatchTouchEvent(input);
+        }
+        Choreographer.getInstance().doFrame(SystemClock.uptimeMillis() * 1000000L);
+        performTraversals();
+        mFrames++;
+    }
+
+    // frames until nothing is left to do, at most maxFrames of them
+    public int settle(int maxFrames) {
+        int rv = 0;
+        while ( rv < maxFrames && !isSettled() ) {
+            frame();
+            Looper.getMainLooper().getQueue().runUntilIdle();
+            rv++;
+        }
+        if ( !isSettled() ) {
+            throw new IllegalStateException("not settled after " + maxFrames + " frames");
+        }
+        return rv;
+    }
+
+    public boolean isSettled() {
+        return !mLayoutRequested && !mDirty
+            && !Choreographer.getInstance().hasCallbacks()
+            && Looper.getMainLooper().getQueue().isIdle();
+    }
+
+    public void performTraversals() {
+        if ( mLayoutRequested || mView.isLayoutRequested() ) {
+            mTraversals++;
+            mLayoutRequested = false;
+            mView.measure(View.MeasureSpec.makeMeasureSpec(mWidth, View.MeasureSpec.EXACTLY),
+                          View.MeasureSpec.makeMeasureSpec(mHeight, View.MeasureSpec.EXACTLY));
+            mView.layout(0, 0, mView.getMeasuredWidth(), mView.getMeasuredHeight());
+        }
+        if ( mDirty || mView.isDirty() ) {
+            mDraws++;
+            mDirty = false;
+            mCanvas.restoreToCount(1);
+            final int sc = mCanvas.save();
+            mCanvas.translate(-mView.getScrollX(), -mView.getScrollY());
+            mView.draw(mCanvas);
+            mCanvas.restoreToCount(sc);
+        }
+    }
+
+    public boolean dispatchTouchEvent(MotionEvent e) {
+        if ( MotionEvent.ACTION_DOWN == e.getActionMasked() ) {
+            mDisallowIntercept = false;
+        }
+        return mView.dispatchTouchEvent(e);
+    }
+
+    // whether anything below asked its ancestors not to intercept
+    public boolean isInterceptDisallowed() {
+        return mDisallowIntercept;
+    }
+
+    public int getFrameCount() {
+        return mFrames;
+    }
+
+    public int getTraversalCount() {
+        return mTraversals;
+    }
+
+    public int getDrawCount() {
+        return mDraws;
+    }
+
+    // ViewParent
+
+    @Override
+    public void requestLayout() {
+        mLayoutRequested = true;
+    }
+
+    @Override
+    public boolean isLayoutRequested() {
+        return mLayoutRequested;
+    }
+
+    @Override
+    public void invalidateChild(View child, Rect r) {
+        mDirty = true;
+    }
+
+    @Override
+    public ViewParent getParent() {
+        return null;
+    }
+
+    @Override
+    public void requestChildFocus(View child, View focused) {
+    }
+
+    @Override
+    public void clearChildFocus(View child) {
+    }
+
+    @Override
+    public boolean requestChildRectangleOnScreen(View child, Rect rectangle, boolean immediate) {
+        return false;
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        mDisallowIntercept = disallowIntercept;
+    }
+}
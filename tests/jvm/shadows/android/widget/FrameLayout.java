@@ -0,0 +1,110 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * Children stacked at the top left, without gravity.
+  *
+  */
+public class FrameLayout extends ViewGroup {
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+        public LayoutParams(Context ctx, AttributeSet as) {
+            super(ctx, as);
+        }
+
+        public LayoutParams(int w, int h) {
+            super(w, h);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    public FrameLayout(Context ctx) {
+        super(ctx);
+    }
+
+    public FrameLayout(Context ctx, AttributeSet as) {
+        super(ctx, as);
+    }
+
+    public FrameLayout(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int w = 0;
+        int h = 0;
+        final int n = getChildCount();
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
+                final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+                w = Math.max(w, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+                h = Math.max(h, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+            }
+        }
+        w += getPaddingLeft() + getPaddingRight();
+        h += getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(Math.max(w, getSuggestedMinimumWidth()), widthMeasureSpec),
+                             resolveSize(Math.max(h, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final int n = getChildCount();
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+                final int cl = getPaddingLeft() + lp.leftMargin;
+                final int ct = getPaddingTop() + lp.topMargin;
+                child.layout(cl, ct, cl + child.getMeasuredWidth(), ct + child.getMeasuredHeight());
+            }
+        }
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet as) {
+        return new LayoutParams(getContext(), as);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * Children in a row or a column, without weights or gravity.
+  *
+  */
+public class LinearLayout extends ViewGroup {
+    public static final int HORIZONTAL = 0;
+    public static final int VERTICAL = 1;
+
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+        public float weight;
+
+        public LayoutParams(Context ctx, AttributeSet as) {
+            super(ctx, as);
+        }
+
+        public LayoutParams(int w, int h) {
+            super(w, h);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
+
+    private int mOrientation = HORIZONTAL;
+
+    public LinearLayout(Context ctx) {
+        super(ctx);
+    }
+
+    public LinearLayout(Context ctx, AttributeSet as) {
+        super(ctx, as);
+    }
+
+    public LinearLayout(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+    }
+
+    public void setOrientation(int orientation) {
+        if ( orientation != mOrientation ) {
+            mOrientation = orientation;
+            requestLayout();
+        }
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final boolean vertical = VERTICAL == mOrientation;
+        int along = 0;
+        int across = 0;
+        final int n = getChildCount();
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+                if ( vertical ) {
+                    measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, along);
+                    along += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+                    across = Math.max(across, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+                } else {
+                    measureChildWithMargins(child, widthMeasureSpec, along, heightMeasureSpec, 0);
+                    along += child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+                    across = Math.max(across, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+                }
+            }
+        }
+        final int w = (vertical ? across : along) + getPaddingLeft() + getPaddingRight();
+        final int h = (vertical ? along : across) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(Math.max(w, getSuggestedMinimumWidth()), widthMeasureSpec),
+                             resolveSize(Math.max(h, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final boolean vertical = VERTICAL == mOrientation;
+        int x = getPaddingLeft();
+        int y = getPaddingTop();
+        final int n = getChildCount();
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+                final int cl = x + lp.leftMargin;
+                final int ct = y + lp.topMargin;
+                child.layout(cl, ct, cl + child.getMeasuredWidth(), ct + child.getMeasuredHeight());
+                if ( vertical ) {
+                    y = ct + child.getMeasuredHeight() + lp.bottomMargin;
+                } else {
+                    x = cl + child.getMeasuredWidth() + lp.rightMargin;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return VERTICAL == mOrientation
+            ? new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT)
+            : new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet as) {
+        return new LayoutParams(getContext(), as);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+}
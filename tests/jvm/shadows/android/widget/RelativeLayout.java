@@ -0,0 +1,177 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package android.widget;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+  *
+  * Only the vertical rules TitledPanels uses: ALIGN_PARENT_TOP and
+  * BELOW. A child below another takes the height left under it.
+  *
+  */
+public class RelativeLayout extends ViewGroup {
+    public static final int TRUE = -1;
+
+    public static final int LEFT_OF = 0;
+    public static final int RIGHT_OF = 1;
+    public static final int ABOVE = 2;
+    public static final int BELOW = 3;
+    public static final int ALIGN_PARENT_TOP = 10;
+    public static final int ALIGN_PARENT_BOTTOM = 12;
+    public static final int CENTER_IN_PARENT = 13;
+
+    private static final int VERB_COUNT = 22;
+
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+        private final int[] mRules = new int[VERB_COUNT];
+        private int mTop;
+        private int mMeasurePass;
+
+        public LayoutParams(Context ctx, AttributeSet as) {
+            super(ctx, as);
+        }
+
+        public LayoutParams(int w, int h) {
+            super(w, h);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+
+        public void addRule(int verb) {
+            mRules[verb] = TRUE;
+        }
+
+        public void addRule(int verb, int anchor) {
+            mRules[verb] = anchor;
+        }
+
+        public int[] getRules() {
+            return mRules;
+        }
+    }
+
+    private int mMeasurePass;
+
+    public RelativeLayout(Context ctx) {
+        super(ctx);
+    }
+
+    public RelativeLayout(Context ctx, AttributeSet as) {
+        super(ctx, as);
+    }
+
+    public RelativeLayout(Context ctx, AttributeSet as, int defStyle) {
+        super(ctx, as, defStyle);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mMeasurePass++;
+        final int n = getChildCount();
+        int w = 0;
+        int h = 0;
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                measure(child, widthMeasureSpec, heightMeasureSpec, 0);
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                w = Math.max(w, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+                h = Math.max(h, lp.mTop + child.getMeasuredHeight() + lp.bottomMargin);
+            }
+        }
+        w += getPaddingLeft() + getPaddingRight();
+        h += getPaddingBottom();
+        setMeasuredDimension(resolveSize(Math.max(w, getSuggestedMinimumWidth()), widthMeasureSpec),
+                             resolveSize(Math.max(h, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    // measures the child after whatever it is below, and leaves its top
+    // in its layout params
+    private void measure(View child, int widthMeasureSpec, int heightMeasureSpec, int depth) {
+        final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        if ( lp.mMeasurePass == mMeasurePass ) {
+            return;
+        }
+        if ( depth > getChildCount() ) {
+            throw new IllegalStateException("Circular dependencies cannot exist in RelativeLayout");
+        }
+        int top = getPaddingTop();
+        final int anchor = lp.mRules[BELOW];
+        if ( 0 != anchor ) {
+            final View above = findChild(anchor);
+            if ( null != above && GONE != above.getVisibility() ) {
+                measure(above, widthMeasureSpec, heightMeasureSpec, depth + 1);
+                final LayoutParams alp = (LayoutParams) above.getLayoutParams();
+                top = alp.mTop + above.getMeasuredHeight() + alp.bottomMargin;
+            }
+        }
+        lp.mTop = top + lp.topMargin;
+        measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, top - getPaddingTop());
+        lp.mMeasurePass = mMeasurePass;
+    }
+
+    private View findChild(int id) {
+        View rv = null;
+        final int n = getChildCount();
+        for ( int i = 0; null == rv && i < n; i++ ) {
+            if ( id == getChildAt(i).getId() ) {
+                rv = getChildAt(i);
+            }
+        }
+        return rv;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final int n = getChildCount();
+        for ( int i = 0; i < n; i++ ) {
+            final View child = getChildAt(i);
+            if ( GONE != child.getVisibility() ) {
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                final int cl = getPaddingLeft() + lp.leftMargin;
+                child.layout(cl, lp.mTop, cl + child.getMeasuredWidth(), lp.mTop + child.getMeasuredHeight());
+            }
+        }
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet as) {
+        return new LayoutParams(getContext(), as);
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new LayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+}
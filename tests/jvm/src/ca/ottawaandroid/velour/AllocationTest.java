@@ -0,0 +1,139 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * Heap allocated on the test thread over a pair of 300 frame swipes,
+  * to the next panel and back, once the hierarchy has been through the
+  * same pair and settled: every touch event, computeScroll, draw
+  * state, listener callback, window refill and recycled view on the
+  * way must come to nothing. The build runs these on C1 so that the count
+  * is the code's own and not the optimizing compiler's.
+  *
+  */
+public class AllocationTest {
+    private static final int FRAMES = 300;
+    // the sine drag ends where it began, two periods in
+    private static final int WOBBLE = 200;
+    private static final int WARMUPS = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Harness mHarness;
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+    }
+
+    @Test
+    public void plainChildrenSwipe() {
+        final Panels p = new Panels(mHarness.ctx);
+        for ( int i = 0; i < 5; i++ ) {
+            p.addView(new View(mHarness.ctx));
+        }
+        p.addListener(new Harness.CountingListener());
+        mHarness.attach(p);
+        assertSteadySwipe(p);
+    }
+
+    @Test
+    public void adapterSwipe() {
+        final Panels p = new Panels(mHarness.ctx);
+        p.setAdapter(new Harness.Adapter(10));
+        p.addListener(new Harness.CountingListener());
+        mHarness.attach(p);
+        assertSteadySwipe(p);
+    }
+
+    @Test
+    public void physicsSwipe() {
+        final Panels p = new Panels(mHarness.ctx);
+        for ( int i = 0; i < 5; i++ ) {
+            p.addView(new View(mHarness.ctx));
+        }
+        p.setFlingPhysics(true);
+        mHarness.attach(p);
+        assertSteadySwipe(p);
+    }
+
+    @Test
+    public void titledSwipe() {
+        final TitledPanels t = new TitledPanels(mHarness.ctx);
+        for ( int i = 0; i < 5; i++ ) {
+            t.addView(new View(mHarness.ctx));
+        }
+        t.setTitles(new int[] { 1, 2, 3, 4, 5 });
+        mHarness.attach(t);
+        assertSteadySwipe(t.getPanels());
+    }
+
+    private void assertSteadySwipe(Panels p) {
+        mHarness.settle();
+        final int start = p.getCurrentPanel();
+        for ( int i = 0; i < WARMUPS; i++ ) {
+            swipe(-Harness.WIDTH / 2 - 60);
+            swipe(Harness.WIDTH / 2 + 60);
+        }
+        final long before = allocated();
+        swipe(-Harness.WIDTH / 2 - 60);
+        final int middle = p.getCurrentPanel();
+        swipe(Harness.WIDTH / 2 + 60);
+        assertEquals(0, allocated() - before);
+        assertEquals(start + 1, middle);
+        assertEquals(start, p.getCurrentPanel());
+    }
+
+    // a drag back and forth across the boundaries either side of the
+    // current panel, in both draw states, then on by dx, slowly enough
+    // not to fling, and released; settles on the panel that way
+    private void swipe(float dx) {
+        final float x = Harness.WIDTH / 2;
+        final float y = Harness.HEIGHT / 2;
+        mHarness.down(x, y);
+        float last = x;
+        for ( int i = 1; i <= WOBBLE; i++ ) {
+            final float next = x - 200 * (float) Math.sin(i * Math.PI / 50);
+            mHarness.move(last, y, next, y);
+            last = next;
+        }
+        final int leg = FRAMES - 2 - WOBBLE;
+        for ( int i = 1; i <= leg; i++ ) {
+            final float next = x + dx * i / leg;
+            mHarness.move(last, y, next, y);
+            last = next;
+        }
+        mHarness.up(last, y);
+        mHarness.settle();
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
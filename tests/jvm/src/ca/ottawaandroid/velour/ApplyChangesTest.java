@@ -0,0 +1,161 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * Changes applied to the adapter of a Panels in motion. The drag or
+  * settle carries on from the same place on the same item, and the
+  * listeners only hear of a change when the current item moved or
+  * went.
+  *
+  */
+public class ApplyChangesTest {
+    private static final int W = Harness.WIDTH;
+
+    private Harness mHarness;
+    private Harness.CountingListener mListener;
+    private IdAdapter mAdapter;
+    private Panels mPanels;
+
+    // panels with stable ids, edited through the list
+    private static class IdAdapter extends PanelsAdapter {
+        final ArrayList<Long> ids = new ArrayList<Long>();
+
+        IdAdapter(int count) {
+            for ( int i = 0; i < count; i++ ) {
+                ids.add((long) i);
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return ids.size();
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return ids.get(position);
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return null == convertView ? new View(parent.getContext()) : convertView;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+        mListener = new Harness.CountingListener();
+        mAdapter = new IdAdapter(10);
+        mPanels = new Panels(mHarness.ctx);
+        mPanels.setAdapter(mAdapter);
+        mPanels.addListener(mListener);
+        mHarness.attach(mPanels);
+        mPanels.setCurrentPanel(3, false);
+        mHarness.settle();
+        mListener.reset();
+    }
+
+    // a held drag 100px toward the next panel
+    private void dragTowardNext() {
+        mHarness.drag(300, 300, -100, 0, 5);
+        assertEquals(3 * W + 100, mPanels.getScrollX());
+    }
+
+    private void insertAt(int position, int count) {
+        for ( int i = 0; i < count; i++ ) {
+            mAdapter.ids.add(position, 100L + i);
+        }
+        mPanels.applyChanges(new PanelChanges().insert(position, count));
+    }
+
+    @Test
+    public void insertBeforeADragMovesItWithTheItem() {
+        dragTowardNext();
+        insertAt(0, 2);
+        assertEquals(5, mPanels.getCurrentPanel());
+        assertEquals(5 * W + 100, mPanels.getScrollX());
+        assertEquals(1, mListener.changed);
+        assertEquals(5, mListener.lastChanged);
+
+        // the finger is still dragging
+        mHarness.move(200, 300, 100, 300);
+        assertEquals(5 * W + 200, mPanels.getScrollX());
+        mHarness.up(100, 300);
+        mHarness.settle();
+        assertEquals(6, mPanels.getCurrentPanel());
+        assertEquals(6 * W, mPanels.getScrollX());
+    }
+
+    @Test
+    public void insertAfterADragIsNotAChange() {
+        dragTowardNext();
+        insertAt(8, 3);
+        assertEquals(3, mPanels.getCurrentPanel());
+        assertEquals(3 * W + 100, mPanels.getScrollX());
+        assertEquals(0, mListener.changed);
+
+        mHarness.move(200, 300, 200, 300);
+        mHarness.up(200, 300);
+        mHarness.settle();
+        assertEquals(3, mPanels.getCurrentPanel());
+        assertEquals(3 * W, mPanels.getScrollX());
+    }
+
+    @Test
+    public void insertDuringASettleKeepsItsTarget() {
+        mHarness.swipe(400, 300, -300, 5);
+        mHarness.frame();
+        final int sx = mPanels.getScrollX();
+        assertTrue(sx > 3 * W && sx < 4 * W);
+        insertAt(0, 1);
+        assertEquals(sx + W, mPanels.getScrollX());
+
+        mHarness.settle();
+        assertEquals(5, mPanels.getCurrentPanel());
+        assertEquals(5 * W, mPanels.getScrollX());
+        assertEquals(4L, mAdapter.getItemId(5));
+    }
+
+    @Test
+    public void removingTheCurrentItemIsAChange() {
+        mAdapter.ids.remove(3);
+        mPanels.applyChanges(new PanelChanges().remove(3, 1));
+        assertEquals(1, mListener.changed);
+        mHarness.settle();
+        assertEquals(mPanels.getCurrentPanel() * W, mPanels.getScrollX());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Executor;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * Panels built by an AsyncPanelsAdapter, with the worker run in line
+  * so that what it posts back arrives on the frames that follow. A
+  * createView that fails on the worker leaves nothing pending: the
+  * panel is built again on the main thread.
+  *
+  */
+public class AsyncInflationTest {
+    private Harness mHarness;
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+    }
+
+    // createView fails in the worker, by returning null or throwing,
+    // and anywhere else works unless failing everywhere
+    private static class FailingAdapter extends AsyncPanelsAdapter {
+        private final boolean mThrows;
+        private final boolean mEverywhere;
+        private boolean mInWorker;
+        int failures;
+
+        final Executor executor = new Executor() {
+            public void execute(Runnable r) {
+                mInWorker = true;
+                try {
+                    r.run();
+                } finally {
+                    mInWorker = false;
+                }
+            }
+        };
+
+        FailingAdapter(boolean throwing, boolean everywhere) {
+            mThrows = throwing;
+            mEverywhere = everywhere;
+        }
+
+        @Override
+        public int getCount() {
+            return 5;
+        }
+
+        @Override
+        public View createView(int position, LayoutInflater inflater, ViewGroup parent) {
+            View rv = null;
+            if ( mInWorker || mEverywhere ) {
+                failures++;
+                if ( mThrows ) {
+                    throw new IllegalStateException("no panel " + position);
+                }
+            } else {
+                rv = new View(parent.getContext());
+            }
+            return rv;
+        }
+
+        @Override
+        public void bindView(int position, View panel) {
+        }
+    }
+
+    private Panels asyncPanels(FailingAdapter a) {
+        final Panels rv = new Panels(mHarness.ctx);
+        rv.setInflationExecutor(a.executor);
+        rv.setAdapter(a);
+        mHarness.attach(rv);
+        mHarness.settle();
+        return rv;
+    }
+
+    private void assertBuiltAfterFailing(boolean throwing) {
+        final FailingAdapter a = new FailingAdapter(throwing, false);
+        final Panels p = asyncPanels(a);
+        final int failed = a.failures;
+        assertTrue(failed > 0);
+        assertNotNull(p.getPanelAt(p.getCurrentPanel()));
+
+        // the panel swiped onto is there too, not left pending
+        mHarness.swipe(400, 300, -300, 10);
+        mHarness.settle();
+        final int pi = p.getCurrentPanel();
+        assertEquals(1, pi);
+        final View v = p.getPanelAt(pi);
+        assertNotNull(v);
+        assertEquals(p.getWidth(), v.getWidth());
+        assertTrue(a.failures > failed);
+    }
+
+    @Test
+    public void nullFromTheWorkerIsBuiltOnTheMainThread() {
+        assertBuiltAfterFailing(false);
+    }
+
+    @Test
+    public void throwingInTheWorkerIsBuiltOnTheMainThread() {
+        assertBuiltAfterFailing(true);
+    }
+
+    // with no way to build the panel, the main thread hears of it
+    @Test
+    public void failingEverywhereIsThrown() {
+        final FailingAdapter a = new FailingAdapter(true, true);
+        final Panels p = new Panels(mHarness.ctx);
+        p.setInflationExecutor(a.executor);
+        p.setAdapter(a);
+        mHarness.attach(p);
+        try {
+            mHarness.settle();
+            fail("the failure was swallowed");
+        } catch ( IllegalStateException ex ) {
+            assertTrue(ex.getMessage().startsWith("no panel "));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import android.view.View;
+
+import org.junit.Test;
+
+/**
+  *
+  * A session recorded from Panels, written out and read back, replays
+  * into a bare PagingEngine with the same scrolls and panel changes,
+  * and into a fresh Panels with the same passes over its children.
+  *
+  */
+public class GestureRecordingTest {
+    private static class Changes extends Panels.Listener {
+        final ArrayList<Integer> panels = new ArrayList<Integer>();
+
+        @Override
+        public void onPanelChanged(int pi) {
+            panels.add(pi);
+        }
+    }
+
+    private static class ReplayChanges extends GestureReplayer.ReplayHost {
+        final ArrayList<Integer> panels = new ArrayList<Integer>();
+        int scrollX;
+
+        ReplayChanges(GestureRecording r) {
+            super(r);
+        }
+
+        @Override
+        public void onPanelChanged(int pi) {
+            panels.add(pi);
+        }
+
+        @Override
+        public void scrollTo(int x) {
+            scrollX = x;
+        }
+    }
+
+    private static GestureRecording roundTrip(GestureRecording r) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        r.write(os);
+        return GestureRecording.read(new ByteArrayInputStream(os.toByteArray()));
+    }
+
+    private static int[] passes(Panels p) {
+        final PanelsCounters c = p.getCounters();
+        return new int[] { c.getMeasureCount(), c.getLayoutCount(), c.getDrawCount(),
+                           c.getCallbackCount(), c.getGestureCount() };
+    }
+
+    // the Panels built as the recorded one was, in a window of its own
+    private interface Setup {
+        Panels build(Harness h);
+    }
+
+    private void assertReplaysInPanels(Setup s, Panels p, Changes changes, GestureRecording r)
+        throws IOException {
+        final int[] recorded = passes(p);
+        final Harness h = new Harness();
+        final Panels q = s.build(h);
+        final Changes replayed = new Changes();
+        q.addListener(replayed);
+        h.attach(q);
+        h.settle();
+        q.getCounters().reset();
+
+        new PanelsReplayer(roundTrip(r), q, h.replayWindow()).replay();
+        h.settle();
+
+        assertEquals(changes.panels, replayed.panels);
+        assertEquals(p.getCurrentPanel(), q.getCurrentPanel());
+        assertEquals(p.getScrollX(), q.getScrollX());
+        assertEquals(Arrays.toString(recorded), Arrays.toString(passes(q)));
+    }
+
+    private void assertReplays(Panels p, Changes changes, GestureRecording r) throws IOException {
+        final GestureRecording back = roundTrip(r);
+        assertEquals(r.getEventCount(), back.getEventCount());
+        assertEquals(r.getPanelCount(), back.getPanelCount());
+        assertEquals(r.getTouchSlop(), back.getTouchSlop());
+
+        final ReplayChanges host = new ReplayChanges(back);
+        final GestureReplayer replayer = new GestureReplayer(back, host);
+        // setting up the engine is not part of the session
+        host.panels.clear();
+        replayer.replay();
+
+        assertEquals(changes.panels, host.panels);
+        assertEquals(p.getCurrentPanel(), replayer.getEngine().getCurrent());
+        assertEquals(p.getScrollX(), replayer.getEngine().getScrollX());
+        assertEquals(p.getScrollX(), host.scrollX);
+    }
+
+    private static final Setup PLAIN = new Setup() {
+        public Panels build(Harness h) {
+            final Panels rv = new Panels(h.ctx);
+            for ( int i = 0; i < 6; i++ ) {
+                rv.addView(new View(h.ctx));
+            }
+            return rv;
+        }
+    };
+
+    private static final Setup ADAPTER = new Setup() {
+        public Panels build(Harness h) {
+            final Panels rv = new Panels(h.ctx);
+            rv.setAdapter(new Harness.Adapter(8));
+            return rv;
+        }
+    };
+
+    @Test
+    public void swipesAndFlingsReplay() throws IOException {
+        final Harness h = new Harness();
+        final Panels p = PLAIN.build(h);
+        final Changes changes = new Changes();
+        p.addListener(changes);
+        h.attach(p);
+        h.settle();
+
+        final GestureRecording r = new GestureRecording();
+        p.getCounters().reset();
+        p.startRecording(r);
+        h.swipe(400, 300, -300, 20);
+        h.settle();
+        h.swipe(100, 300, 260, 4);
+        h.settle();
+        h.swipe(400, 300, -200, 3);
+        h.settle();
+        p.stopRecording();
+
+        assertEquals(Arrays.asList(1, 0, 1), changes.panels);
+        assertReplays(p, changes, r);
+        assertReplaysInPanels(PLAIN, p, changes, r);
+    }
+
+    @Test
+    public void programmaticNavigationReplays() throws IOException {
+        final Harness h = new Harness();
+        final Panels p = ADAPTER.build(h);
+        final Changes changes = new Changes();
+        p.addListener(changes);
+        h.attach(p);
+        h.settle();
+
+        final GestureRecording r = new GestureRecording();
+        p.getCounters().reset();
+        p.startRecording(r);
+        p.setCurrentPanel(3, true);
+        h.settle();
+        h.swipe(400, 300, -300, 20);
+        h.settle();
+        p.setCurrentPanel(6, false);
+        h.settle();
+        p.resetPanels(2);
+        h.settle();
+        p.stopRecording();
+
+        assertEquals(2, p.getCurrentPanel());
+        assertReplays(p, changes, r);
+        assertReplaysInPanels(ADAPTER, p, changes, r);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewRootImpl;
+import android.widget.FrameLayout;
+
+/**
+  *
+  * A window for a view under test: a FrameLayout root standing in for
+  * the decor view, a frame loop, and scripted touch gestures. Each
+  * gesture event goes in with the frame it arrives on.
+  *
+  */
+class Harness {
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+
+    final Context ctx = new Context();
+    final FrameLayout root = new FrameLayout(ctx);
+    private ViewRootImpl mWindow;
+    private long mDownTime;
+
+    Harness() {
+        Looper.getMainLooper().getQueue().clear();
+        Choreographer.getInstance().clear();
+        SystemClock.setUptimeMillis(1000);
+    }
+
+    // the view fills the window
+    void attach(View v) {
+        root.addView(v, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                     ViewGroup.LayoutParams.MATCH_PARENT));
+        mWindow = new ViewRootImpl(root, WIDTH, HEIGHT);
+    }
+
+    ViewRootImpl window() {
+        return mWindow;
+    }
+
+    void frame() {
+        mWindow.frame();
+    }
+
+    void frames(int n) {
+        for ( int i = 0; i < n; i++ ) {
+            mWindow.frame();
+        }
+    }
+
+    // the window as a replay drives it, a frame at each recorded time
+    // and the queue run out after it, as settle does
+    PanelsReplayer.Window replayWindow() {
+        return new PanelsReplayer.Window() {
+            public long now() {
+                return SystemClock.uptimeMillis();
+            }
+
+            public void frame(long time, MotionEvent e) {
+                SystemClock.setUptimeMillis(Math.max(SystemClock.uptimeMillis(),
+                                                     time - ViewRootImpl.FRAME_MILLIS));
+                mWindow.frame(e);
+                Looper.getMainLooper().getQueue().runUntilIdle();
+            }
+        };
+    }
+
+    // frames until the hierarchy is at rest, returning how many
+    int settle() {
+        return mWindow.settle(600);
+    }
+
+    void down(float x, float y) {
+        mDownTime = nextFrameTime();
+        send(MotionEvent.obtain(mDownTime, mDownTime, MotionEvent.ACTION_DOWN, x, y, 0));
+    }
+
+    // one frame's movement to x, y, with a batched sample halfway
+    void move(float fromX, float fromY, float x, float y) {
+        final long t = nextFrameTime();
+        final MotionEvent e = MotionEvent.obtain(mDownTime, t - ViewRootImpl.FRAME_MILLIS / 2,
+                                                 MotionEvent.ACTION_MOVE,
+                                                 (fromX + x) / 2, (fromY + y) / 2, 0);
+        e.addBatch(t, x, y, 1, 1, 0);
+        send(e);
+    }
+
+    void up(float x, float y) {
+        final long t = nextFrameTime();
+        send(MotionEvent.obtain(mDownTime, t, MotionEvent.ACTION_UP, x, y, 0));
+    }
+
+    // a horizontal drag of dx over the given number of move frames,
+    // released without lingering
+    void swipe(float x, float y, float dx, int moves) {
+        drag(x, y, dx, 0, moves);
+        up(x + dx, y);
+    }
+
+    void drag(float x, float y, float dx, float dy, int moves) {
+        down(x, y);
+        for ( int i = 1; i <= moves; i++ ) {
+            move(x + dx * (i - 1) / moves, y + dy * (i - 1) / moves,
+                 x + dx * i / moves, y + dy * i / moves);
+        }
+    }
+
+    private long nextFrameTime() {
+        return SystemClock.uptimeMillis() + ViewRootImpl.FRAME_MILLIS;
+    }
+
+    private void send(MotionEvent e) {
+        mWindow.frame(e);
+        e.recycle();
+    }
+
+    // zeroes the Panels counters and the shadow counts of the panels
+    // and their group
+    static void resetCounts(Panels p, List<View> panels) {
+        p.getCounters().reset();
+        p.resetCounts();
+        for ( View v : panels ) {
+            v.resetCounts();
+        }
+    }
+
+    static List<View> children(ViewGroup g) {
+        final ArrayList<View> rv = new ArrayList<View>();
+        for ( int i = 0; i < g.getChildCount(); i++ ) {
+            rv.add(g.getChildAt(i));
+        }
+        return rv;
+    }
+
+    // panels with no content of their own, built on demand and
+    // recycled
+    static class Adapter extends PanelsAdapter {
+        private final int mCount;
+        // every view built, attached or not
+        final ArrayList<View> views = new ArrayList<View>();
+
+        Adapter(int count) {
+            mCount = count;
+        }
+
+        @Override
+        public int getCount() {
+            return mCount;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View rv = convertView;
+            if ( null == rv ) {
+                rv = new View(parent.getContext());
+                views.add(rv);
+            }
+            return rv;
+        }
+    }
+
+    // every callback, in order, as the event and panel, e.g. "changed4"
+    static class RecordingListener extends Panels.Listener {
+        final ArrayList<String> log = new ArrayList<String>();
+
+        @Override
+        public void onPanelChanged(int pi) {
+            log.add("changed" + pi);
+        }
+
+        @Override
+        public void onPanelWillAppear(int pi, View v) {
+            log.add("willAppear" + pi);
+        }
+
+        @Override
+        public void onPanelAppeared(int pi, View v) {
+            log.add("appeared" + pi);
+        }
+
+        @Override
+        public void onPanelWillDisappear(int pi, View v) {
+            log.add("willDisappear" + pi);
+        }
+
+        @Override
+        public void onPanelDisappeared(int pi, View v) {
+            log.add("disappeared" + pi);
+        }
+
+        @Override
+        public void onPanelLeftWindow(int pi, View v) {
+            log.add("leftWindow" + pi);
+        }
+    }
+
+    static class CountingListener extends Panels.Listener {
+        int changed;
+        int motion;
+        int pending;
+        int scrolled;
+        int willAppear;
+        int appeared;
+        int willDisappear;
+        int disappeared;
+        int leftWindow;
+        int lastChanged = Panels.INVALID_PANEL;
+
+        @Override
+        public void onPanelChanged(int pi) {
+            changed++;
+            lastChanged = pi;
+        }
+
+        @Override
+        public void onPanelMotion(int pi) {
+            motion++;
+        }
+
+        @Override
+        public void onPanelPending(int pi) {
+            pending++;
+        }
+
+        @Override
+        public void onPanelScrolled(int position, float positionOffset) {
+            scrolled++;
+        }
+
+        @Override
+        public void onPanelWillAppear(int pi, View v) {
+            willAppear++;
+        }
+
+        @Override
+        public void onPanelAppeared(int pi, View v) {
+            appeared++;
+        }
+
+        @Override
+        public void onPanelWillDisappear(int pi, View v) {
+            willDisappear++;
+        }
+
+        @Override
+        public void onPanelDisappeared(int pi, View v) {
+            disappeared++;
+        }
+
+        @Override
+        public void onPanelLeftWindow(int pi, View v) {
+            leftWindow++;
+        }
+
+        void reset() {
+            changed = 0;
+            motion = 0;
+            pending = 0;
+            scrolled = 0;
+            willAppear = 0;
+            appeared = 0;
+            willDisappear = 0;
+            disappeared = 0;
+            leftWindow = 0;
+        }
+
+        int total() {
+            return changed + motion + pending + scrolled + willAppear + appeared
+                + willDisappear + disappeared + leftWindow;
+        }
+    }
+}
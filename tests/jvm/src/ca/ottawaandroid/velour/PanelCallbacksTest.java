@@ -0,0 +1,98 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * The order listeners hear about panels changing and coming into and
+  * out of view. Whatever moved the panels, a panel appears only once
+  * the scroll has put it in view, and disappears only once it has
+  * left.
+  *
+  */
+public class PanelCallbacksTest {
+    private Harness mHarness;
+    private Harness.RecordingListener mListener;
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+        mListener = new Harness.RecordingListener();
+    }
+
+    private Panels plainPanels(int count) {
+        final Panels rv = new Panels(mHarness.ctx);
+        for ( int i = 0; i < count; i++ ) {
+            rv.addView(new View(mHarness.ctx));
+        }
+        rv.addListener(mListener);
+        mHarness.attach(rv);
+        mHarness.settle();
+        mListener.log.clear();
+        return rv;
+    }
+
+    private void assertLog(String... expected) {
+        assertEquals(Arrays.asList(expected), mListener.log);
+    }
+
+    // the scroll lands before the change is published, so panel 0
+    // goes and panel 4 comes with nothing in between
+    @Test
+    public void jumpToAPlainChild() {
+        final Panels p = plainPanels(6);
+        p.setCurrentPanel(4, false);
+        mHarness.settle();
+        assertLog("willDisappear0", "disappeared0", "willAppear4", "appeared4",
+                  "leftWindow1", "leftWindow0", "changed4");
+    }
+
+    // panel 7 is only built once the change reaches the window, and
+    // appears then
+    @Test
+    public void jumpToAnAdapterPanel() {
+        final Panels p = new Panels(mHarness.ctx);
+        p.setAdapter(new Harness.Adapter(10));
+        p.addListener(mListener);
+        mHarness.attach(p);
+        mHarness.settle();
+        mListener.log.clear();
+        p.setCurrentPanel(7, false);
+        mHarness.settle();
+        assertLog("willDisappear0", "disappeared0", "leftWindow9", "leftWindow1",
+                  "leftWindow0", "changed7", "willAppear7", "appeared7");
+    }
+
+    @Test
+    public void dragToTheNextPanel() {
+        plainPanels(6);
+        mHarness.swipe(400, 300, -300, 10);
+        mHarness.settle();
+        assertLog("willDisappear0", "willAppear1", "disappeared0", "leftWindow5",
+                  "changed1", "appeared1");
+    }
+}
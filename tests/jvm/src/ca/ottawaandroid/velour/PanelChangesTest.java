@@ -0,0 +1,125 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+  *
+  * The changes calculated between two lists of ids, applied to the
+  * old positions, put every surviving panel where the new list has
+  * it and mark everything else for binding.
+  *
+  */
+public class PanelChangesTest {
+    private static void assertMaps(long[] oldIds, long[] newIds) {
+        final PanelChanges c = PanelChanges.calculate(oldIds, newIds);
+        final boolean[] changed = new boolean[newIds.length];
+        final int[] map = c.mapPositions(newIds.length, changed);
+
+        assertEquals(oldIds.length, map.length);
+        final boolean[] reached = new boolean[newIds.length];
+        for ( int i = 0; i < oldIds.length; i++ ) {
+            if ( map[i] >= 0 ) {
+                assertEquals("old " + i, oldIds[i], newIds[map[i]]);
+                reached[map[i]] = true;
+            } else {
+                for ( long id : newIds ) {
+                    assertTrue("old " + i + " removed but kept", id != oldIds[i]);
+                }
+            }
+        }
+        for ( int j = 0; j < newIds.length; j++ ) {
+            assertTrue("new " + j + " neither kept nor bound", reached[j] || changed[j]);
+        }
+    }
+
+    private static long[] ids(ArrayList<Long> l) {
+        final long[] rv = new long[l.size()];
+        for ( int i = 0; i < rv.length; i++ ) {
+            rv[i] = l.get(i);
+        }
+        return rv;
+    }
+
+    @Test
+    public void simpleEdits() {
+        assertMaps(new long[] { 1, 2, 3 }, new long[] { 1, 2, 3 });
+        assertMaps(new long[] { 1, 2, 3 }, new long[] { 0, 1, 2, 3 });
+        assertMaps(new long[] { 1, 2, 3 }, new long[] { 1, 3 });
+        assertMaps(new long[] { 1, 2, 3 }, new long[] { 3, 1, 2 });
+        assertMaps(new long[] { 1, 2, 3 }, new long[] {});
+        assertMaps(new long[] {}, new long[] { 4, 5 });
+    }
+
+    @Test
+    public void unchangedListsNeedNoChanges() {
+        assertEquals(0, PanelChanges.calculate(new long[] { 5, 6, 7 }, new long[] { 5, 6, 7 }).size());
+    }
+
+    @Test
+    public void randomEdits() {
+        final Random r = new Random(15);
+        for ( int round = 0; round < 500; round++ ) {
+            final ArrayList<Long> before = new ArrayList<Long>();
+            final int n = r.nextInt(12);
+            for ( int i = 0; i < n; i++ ) {
+                before.add((long) i);
+            }
+            final ArrayList<Long> after = new ArrayList<Long>(before);
+            long next = n;
+            final int edits = r.nextInt(6);
+            for ( int e = 0; e < edits; e++ ) {
+                final int k = r.nextInt(3);
+                if ( 0 == k || after.isEmpty() ) {
+                    after.add(r.nextInt(after.size() + 1), next++);
+                } else if ( 1 == k ) {
+                    after.remove(r.nextInt(after.size()));
+                } else {
+                    Collections.swap(after, r.nextInt(after.size()), r.nextInt(after.size()));
+                }
+            }
+            assertMaps(ids(before), ids(after));
+        }
+    }
+
+    // a few edits to a long list are a few changes, found in time
+    // linear in the list rather than its square
+    @Test(timeout = 2000)
+    public void largeListsAreDiffedQuickly() {
+        final int n = 200000;
+        final long[] before = new long[n];
+        for ( int i = 0; i < n; i++ ) {
+            before[i] = i;
+        }
+        final long[] after = new long[n];
+        after[0] = n;
+        System.arraycopy(before, 0, after, 1, n / 2);
+        System.arraycopy(before, n / 2 + 1, after, n / 2 + 1, n / 2 - 1);
+        final PanelChanges c = PanelChanges.calculate(before, after);
+        assertEquals(2, c.size());
+        assertMaps(before, after);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * The passes Panels makes over its children and listeners for a
+  * scripted gesture, counted exactly. A change that measures, lays
+  * out or draws more, or calls back more often, fails here; if the
+  * extra work is intended, the expected counts move with it.
+  *
+  */
+public class PanelsPassesTest {
+    private Harness mHarness;
+    private Harness.CountingListener mListener;
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+        mListener = new Harness.CountingListener();
+    }
+
+    private Panels plainPanels(int count) {
+        final Panels rv = new Panels(mHarness.ctx);
+        rv.setWrappingPermitted(false);
+        for ( int i = 0; i < count; i++ ) {
+            rv.addView(new View(mHarness.ctx));
+        }
+        rv.addListener(mListener);
+        return rv;
+    }
+
+    private Panels adapterPanels(Harness.Adapter a) {
+        final Panels rv = new Panels(mHarness.ctx);
+        rv.setAdapter(a);
+        rv.addListener(mListener);
+        return rv;
+    }
+
+    private void assertPasses(Panels p, List<View> panels,
+                              int measures, int layouts, int draws, int callbacks) {
+        final PanelsCounters c = p.getCounters();
+        assertEquals("measures", measures, c.getMeasureCount());
+        assertEquals("layouts", layouts, c.getLayoutCount());
+        assertEquals("draws", draws, c.getDrawCount());
+        assertEquals("callbacks", callbacks, c.getCallbackCount());
+        // what the panels saw agrees with what Panels counted
+        int panelMeasures = 0;
+        int panelLayouts = 0;
+        int panelDraws = 0;
+        int cacheEnables = 0;
+        for ( View v : panels ) {
+            panelMeasures += v.getMeasureCount();
+            panelLayouts += v.getLayoutCount();
+            panelDraws += v.getDrawCount();
+            cacheEnables += v.getDrawingCacheEnableCount();
+        }
+        assertEquals("panel measures", measures, panelMeasures);
+        assertEquals("panel layouts", layouts, panelLayouts);
+        assertEquals("drawChild", draws, p.getDrawChildCount());
+        assertEquals("panel draws", draws, panelDraws);
+        assertEquals("drawing cache enables", 0, cacheEnables);
+        assertEquals("listener calls", callbacks, mListener.total());
+    }
+
+    @Test
+    public void firstLayoutMeasuresTheWindowOnly() {
+        final Panels p = plainPanels(5);
+        mHarness.attach(p);
+        mHarness.settle();
+
+        assertEquals(0, p.getCurrentPanel());
+        assertPasses(p, Harness.children(p), 2, 2, 1, 2);
+        assertEquals(1, p.getMeasureCount());
+        assertEquals(1, p.getLayoutCount());
+        assertEquals(0, p.getChildAt(2).getMeasureCount());
+    }
+
+    @Test
+    public void restingPanelsDoNoWork() {
+        final Panels p = plainPanels(5);
+        mHarness.attach(p);
+        mHarness.settle();
+        final List<View> panels = Harness.children(p);
+        Harness.resetCounts(p, panels);
+        mListener.reset();
+
+        mHarness.frames(30);
+
+        assertPasses(p, panels, 0, 0, 0, 0);
+        assertEquals(0, p.getDrawCount());
+    }
+
+    @Test
+    public void dragToNextPlainChild() {
+        final Panels p = plainPanels(5);
+        mHarness.attach(p);
+        mHarness.settle();
+        final List<View> panels = Harness.children(p);
+        Harness.resetCounts(p, panels);
+        mListener.reset();
+
+        mHarness.swipe(400, 300, -300, 20);
+        mHarness.settle();
+
+        assertEquals(1, p.getCurrentPanel());
+        assertEquals(480, p.getScrollX());
+        assertEquals(1, p.getCounters().getGestureCount());
+        // only the panel that joins the window is measured and laid out
+        assertPasses(p, panels, 1, 1, 89, 65);
+        assertEquals(1, p.getChildAt(2).getMeasureCount());
+        assertEquals(0, p.getMeasureCount());
+        assertEquals(0, p.getLayoutCount());
+        assertEquals(1, mListener.changed);
+        assertEquals(1, mListener.motion);
+        assertEquals(1, mListener.appeared);
+        assertEquals(1, mListener.disappeared);
+    }
+
+    @Test
+    public void dragToNextAdapterPanel() {
+        final Harness.Adapter a = new Harness.Adapter(10);
+        final Panels p = adapterPanels(a);
+        mHarness.attach(p);
+        mHarness.settle();
+        assertEquals(3, a.views.size());
+        Harness.resetCounts(p, a.views);
+        mListener.reset();
+
+        mHarness.swipe(400, 300, -300, 20);
+        mHarness.settle();
+
+        assertEquals(1, p.getCurrentPanel());
+        // the panel joining the window is built before the one leaving
+        // it is recycled, so one spare is made
+        assertEquals(4, a.views.size());
+        assertEquals(3, p.getChildCount());
+        assertPasses(p, a.views, 1, 1, 90, 66);
+        assertEquals(1, mListener.leftWindow);
+
+        Harness.resetCounts(p, a.views);
+        mListener.reset();
+        mHarness.swipe(400, 300, -300, 20);
+        mHarness.settle();
+
+        assertEquals(2, p.getCurrentPanel());
+        // after which the panels leaving are reused
+        assertEquals(4, a.views.size());
+        assertPasses(p, a.views, 1, 1, 90, 66);
+    }
+
+    @Test
+    public void flingAcrossSeveralPanels() {
+        final Harness.Adapter a = new Harness.Adapter(20);
+        final Panels p = adapterPanels(a);
+        p.setFlingPhysics(true);
+        mHarness.attach(p);
+        mHarness.settle();
+        Harness.resetCounts(p, a.views);
+        mListener.reset();
+
+        mHarness.swipe(400, 300, -300, 3);
+        mHarness.settle();
+
+        assertEquals(7, p.getCurrentPanel());
+        assertEquals(3, p.getChildCount());
+        // each panel crossed is attached, measured and laid out once
+        assertPasses(p, a.views, 7, 7, 86, 91);
+        assertEquals(7, mListener.willAppear);
+        assertEquals(7, mListener.leftWindow);
+        // the window around the target is built as the fling starts,
+        // alongside the one the scroll is passing through
+        assertEquals(10, a.views.size());
+    }
+
+    // a vertical list the panels could be a row of: it takes a drag
+    // once it is past the touch slop, unless told not to
+    private static class ScrollingParent extends FrameLayout {
+        private final int mSlop;
+        private float mDownY;
+        boolean intercepted;
+
+        ScrollingParent(Context ctx) {
+            super(ctx);
+            mSlop = ViewConfiguration.get(ctx).getScaledTouchSlop();
+        }
+
+        @Override
+        public boolean onInterceptTouchEvent(MotionEvent e) {
+            if ( MotionEvent.ACTION_DOWN == e.getActionMasked() ) {
+                mDownY = e.getY();
+            } else if ( MotionEvent.ACTION_MOVE == e.getActionMasked()
+                        && Math.abs(e.getY() - mDownY) > mSlop ) {
+                intercepted = true;
+            }
+            return intercepted;
+        }
+
+        @Override
+        public boolean onTouchEvent(MotionEvent e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void verticalDragIsLeftToTheParent() {
+        final ScrollingParent list = new ScrollingParent(mHarness.ctx);
+        final Panels p = plainPanels(5);
+        list.addView(p);
+        mHarness.attach(list);
+        mHarness.settle();
+
+        mHarness.drag(200, 300, 6, 200, 10);
+
+        assertTrue(list.intercepted);
+        assertFalse(mHarness.window().isInterceptDisallowed());
+        mHarness.up(206, 500);
+        mHarness.settle();
+        assertEquals(0, p.getCurrentPanel());
+        assertEquals(0, p.getScrollX());
+    }
+
+    @Test
+    public void horizontalDragIsKeptFromTheParent() {
+        final ScrollingParent list = new ScrollingParent(mHarness.ctx);
+        final Panels p = plainPanels(5);
+        list.addView(p);
+        mHarness.attach(list);
+        mHarness.settle();
+
+        mHarness.drag(400, 300, -300, 40, 20);
+
+        assertFalse(list.intercepted);
+        assertTrue(mHarness.window().isInterceptDisallowed());
+        mHarness.up(100, 340);
+        mHarness.settle();
+        assertEquals(1, p.getCurrentPanel());
+    }
+
+    // params of another type, given to panels after they were added,
+    // are replaced on the next measure and promotion
+    @Test
+    public void foreignParamsAreReplaced() {
+        final Panels p = plainPanels(5);
+        p.setMotionLayers(true);
+        mHarness.attach(p);
+        mHarness.settle();
+
+        p.getChildAt(0).setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                                   ViewGroup.LayoutParams.MATCH_PARENT));
+        p.getChildAt(1).setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                                     ViewGroup.LayoutParams.MATCH_PARENT));
+        mHarness.swipe(400, 300, -300, 20);
+        mHarness.settle();
+
+        assertEquals(1, p.getCurrentPanel());
+        assertTrue(p.getChildAt(0).getLayoutParams() instanceof Panels.LayoutParams);
+        assertTrue(p.getChildAt(1).getLayoutParams() instanceof Panels.LayoutParams);
+        assertEquals(Harness.WIDTH, p.getChildAt(1).getWidth());
+    }
+}
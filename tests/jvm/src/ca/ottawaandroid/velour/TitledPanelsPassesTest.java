@@ -0,0 +1,152 @@
+/*
+ *  Part of velour - a collection of useful widgets
+ *
+ *  Copyright 2011 Don Kelly <karfai@gmail.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package ca.ottawaandroid.velour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+  *
+  * TitledPanels built in code, and the passes a swipe makes over it:
+  * the strip follows the scroll by drawing, never by laying out.
+  *
+  */
+public class TitledPanelsPassesTest {
+    private Harness mHarness;
+    private Harness.CountingListener mListener;
+    private TitledPanels mTitled;
+    private Panels mPanels;
+    private TitleStrip mStrip;
+
+    @Before
+    public void setUp() {
+        mHarness = new Harness();
+        mListener = new Harness.CountingListener();
+        mTitled = new TitledPanels(mHarness.ctx);
+        for ( int i = 0; i < 4; i++ ) {
+            mTitled.addView(new View(mHarness.ctx));
+        }
+        mTitled.setTitles(new int[] { 1, 2, 3, 4 });
+        mPanels = mTitled.getPanels();
+        mPanels.addListener(mListener);
+        mStrip = (TitleStrip) mTitled.findViewById(R.id.title_strip);
+        mHarness.attach(mTitled);
+        mHarness.settle();
+    }
+
+    @Test
+    public void childrenGoStraightIntoThePanels() {
+        assertEquals(2, mTitled.getChildCount());
+        assertSame(mStrip, mTitled.getChildAt(0));
+        assertSame(mPanels, mTitled.getChildAt(1));
+        assertEquals(4, mPanels.getChildCount());
+        for ( int i = 0; i < 4; i++ ) {
+            assertSame(View.class, mPanels.getChildAt(i).getClass());
+        }
+        // the default panel is 1, and the panels sit below the strip
+        assertEquals(1, mPanels.getCurrentPanel());
+        assertEquals(mStrip.getBottom(), mPanels.getTop());
+        assertEquals(Harness.HEIGHT, mPanels.getBottom());
+    }
+
+    @Test
+    public void swipeRedrawsTheStripWithoutLayout() {
+        final List<View> panels = Harness.children(mPanels);
+        Harness.resetCounts(mPanels, panels);
+        mTitled.resetCounts();
+        mStrip.resetCounts();
+        mListener.reset();
+
+        mHarness.swipe(400, 300, -300, 20);
+        mHarness.settle();
+
+        assertEquals(2, mPanels.getCurrentPanel());
+        final PanelsCounters c = mPanels.getCounters();
+        assertEquals(1, c.getMeasureCount());
+        assertEquals(1, c.getLayoutCount());
+        assertEquals(89, c.getDrawCount());
+        assertEquals(89, mPanels.getDrawChildCount());
+        // TitledPanels' own listener is called alongside this one
+        assertEquals(2 * mListener.total(), c.getCallbackCount());
+        assertEquals(132, c.getCallbackCount());
+
+        assertEquals(0, mTitled.getMeasureCount());
+        assertEquals(0, mTitled.getLayoutCount());
+        assertEquals(0, mPanels.getMeasureCount());
+        assertEquals(0, mStrip.getMeasureCount());
+        assertEquals(0, mStrip.getLayoutCount());
+        assertEquals(45, mStrip.getDrawCount());
+        for ( View v : panels ) {
+            assertEquals(0, v.getDrawingCacheEnableCount());
+        }
+        assertEquals(0, mStrip.getDrawingCacheEnableCount());
+    }
+
+    @Test
+    public void titleUpdatesDoNotLayOut() {
+        mTitled.resetCounts();
+        mStrip.resetCounts();
+        mPanels.resetCounts();
+        mPanels.getCounters().reset();
+
+        mTitled.notifyTitleChanged(2);
+        mHarness.settle();
+        mTitled.notifyTitlesChanged();
+        mHarness.settle();
+
+        assertEquals(0, mTitled.getMeasureCount());
+        assertEquals(0, mStrip.getLayoutCount());
+        assertEquals(2, mStrip.getDrawCount());
+        assertEquals(0, mPanels.getCounters().getMeasureCount());
+        assertEquals(0, mPanels.getCounters().getLayoutCount());
+        assertEquals(0, mPanels.getCounters().getCallbackCount());
+    }
+
+    // titles drawn on first showing a TitledPanels with four children
+    private static int drawnTitles(boolean titlesFirst) {
+        final Harness h = new Harness();
+        final TitledPanels t = new TitledPanels(h.ctx);
+        if ( titlesFirst ) {
+            t.setTitles(new int[] { 1, 2, 3, 4 });
+        }
+        for ( int i = 0; i < 4; i++ ) {
+            t.addView(new View(h.ctx));
+        }
+        if ( !titlesFirst ) {
+            t.setTitles(new int[] { 1, 2, 3, 4 });
+        }
+        h.attach(t);
+        h.settle();
+        return h.window().getCanvas().getTextDrawCount();
+    }
+
+    @Test
+    public void titlesSetBeforeTheChildrenAreDrawn() {
+        final int after = drawnTitles(false);
+        assertTrue(after > 0);
+        assertEquals(after, drawnTitles(true));
+    }
+}